@@ -0,0 +1,102 @@
+package com.circlo.activity.ranking;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.index.NearbyCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of ranking 10k nearby candidates: {@link ActivityRanker}'s
+ * bounded heap against scoring and sorting every candidate. Features come
+ * from a map keyed by id, as they do from the grid index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivityRankerBenchmark {
+
+  private static final long NOW_EPOCH_SECOND = 1_700_000_000L;
+  private static final ActivityType[] TYPES = ActivityType.values();
+
+  @Param({ "10000" })
+  private int candidates;
+
+  @Param({ "20", "100" })
+  private int k;
+
+  private final ActivityRanker ranker = new ActivityRanker();
+  private final Map<Long, IndexedActivity> features = new HashMap<>();
+  private final List<NearbyCandidate> nearby = new ArrayList<>();
+  private final Set<ActivityType> interests = EnumSet.noneOf(ActivityType.class);
+
+  @Setup
+  public void setUp() {
+    // The defaults from application.yml
+    ReflectionTestUtils.setField(ranker, "distanceWeight", 0.4);
+    ReflectionTestUtils.setField(ranker, "interestWeight", 0.3);
+    ReflectionTestUtils.setField(ranker, "timeWeight", 0.2);
+    ReflectionTestUtils.setField(ranker, "capacityWeight", 0.1);
+    ReflectionTestUtils.setField(ranker, "distanceDecayKm", 1.0);
+    ReflectionTestUtils.setField(ranker, "timeDecayHours", 24.0);
+
+    SplittableRandom random = new SplittableRandom(42);
+    for (long id = 1; id <= candidates; id++) {
+      int maxMembers = 2 + random.nextInt(20);
+      features.put(id, new IndexedActivity(id, 37.5, 127.0, TYPES[random.nextInt(TYPES.length)],
+          ActivityStatus.OPEN, random.nextInt(maxMembers + 1), maxMembers,
+          NOW_EPOCH_SECOND + random.nextInt(7 * 24 * 3600)));
+      nearby.add(new NearbyCandidate(id, random.nextDouble() * 5.0));
+    }
+    nearby.sort(Comparator.comparingDouble(NearbyCandidate::getDistanceKm));
+    for (int i = 0; i < 3; i++) {
+      interests.add(TYPES[i % TYPES.length]);
+    }
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> topK() {
+    return ranker.topK(nearby, features::get, interests, NOW_EPOCH_SECOND, k);
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> sortAll() {
+    List<double[]> scored = new ArrayList<>(nearby.size());
+    for (NearbyCandidate candidate : nearby) {
+      IndexedActivity activity = features.get(candidate.getActivityId());
+      scored.add(new double[]{
+          ranker.score(candidate.getDistanceKm(), activity, interests, NOW_EPOCH_SECOND), scored.size()});
+    }
+    scored.sort(Comparator.comparingDouble((double[] entry) -> entry[0]).reversed());
+    List<NearbyCandidate> result = new ArrayList<>(k);
+    for (int i = 0; i < k; i++) {
+      result.add(nearby.get((int) scored.get(i)[1]));
+    }
+    return result;
+  }
+
+}
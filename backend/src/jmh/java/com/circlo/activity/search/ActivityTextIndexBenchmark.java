@@ -0,0 +1,124 @@
+package com.circlo.activity.search;
+
+import com.circlo.location.index.NearbyCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of {@link ActivityTextIndex#filter} with 1M indexed
+ * activities: prefix queries of one and two tokens against a nearby
+ * candidate list of a few hundred to ten thousand ids. Sample mode, so
+ * the report includes p99.
+ *
+ * <p>Words are drawn from a 20k-word vocabulary with a Zipf-like skew, so
+ * common prefixes have posting lists of hundreds of thousands of ids and
+ * rare ones a handful, as in real titles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ActivityTextIndexBenchmark {
+
+  private static final int VOCABULARY = 20_000;
+  private static final int QUERIES = 1_024;
+  private static final int LIMIT = 20;
+  private static final String[] SYLLABLES = {
+      "ka", "lo", "mi", "ru", "te", "sa", "no", "bi", "da", "fe", "go", "hu", "ji", "pa", "ze", "wo"};
+
+  @Param({ "1000000" })
+  private int activities;
+
+  @Param({ "500", "10000" })
+  private int candidates;
+
+  private final ActivityTextIndex index = new ActivityTextIndex();
+  private final List<List<NearbyCandidate>> candidateLists = new ArrayList<>();
+  private final String[] oneTokenQueries = new String[QUERIES];
+  private final String[] twoTokenQueries = new String[QUERIES];
+  private String[] words;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    words = new String[VOCABULARY];
+    for (int i = 0; i < VOCABULARY; i++) {
+      StringBuilder word = new StringBuilder();
+      int syllables = 2 + random.nextInt(3);
+      for (int s = 0; s < syllables; s++) {
+        word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+      }
+      words[i] = word.toString();
+    }
+
+    for (long id = 1; id <= activities; id++) {
+      index.upsert(id, sentence(random, 3 + random.nextInt(4)), sentence(random, 8 + random.nextInt(12)));
+    }
+    index.markReady();
+
+    for (int i = 0; i < 16; i++) {
+      List<NearbyCandidate> list = new ArrayList<>(candidates);
+      for (int c = 0; c < candidates; c++) {
+        list.add(new NearbyCandidate(1 + random.nextInt(activities), c * 0.001));
+      }
+      candidateLists.add(list);
+    }
+    for (int i = 0; i < QUERIES; i++) {
+      oneTokenQueries[i] = prefix(random);
+      twoTokenQueries[i] = prefix(random) + " " + prefix(random);
+    }
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> oneToken() {
+    int query = next++ & (QUERIES - 1);
+    return index.filter(oneTokenQueries[query], candidateLists.get(query & 15), LIMIT);
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> twoTokens() {
+    int query = next++ & (QUERIES - 1);
+    return index.filter(twoTokenQueries[query], candidateLists.get(query & 15), LIMIT);
+  }
+
+  private String sentence(SplittableRandom random, int length) {
+    StringBuilder sentence = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        sentence.append(' ');
+      }
+      sentence.append(words[zipf(random)]);
+    }
+    return sentence.toString();
+  }
+
+  // What users type: the first two to five letters of a word
+  private String prefix(SplittableRandom random) {
+    String word = words[zipf(random)];
+    return word.substring(0, Math.min(word.length(), 2 + random.nextInt(4)));
+  }
+
+  // Rank r is drawn with probability roughly proportional to 1 / r
+  private static int zipf(SplittableRandom random) {
+    return (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY + 1)) - 1);
+  }
+
+}
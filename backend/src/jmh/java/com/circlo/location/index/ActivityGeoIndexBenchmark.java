@@ -0,0 +1,115 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.util.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearby lookups on the grid against a full scan of every OPEN activity,
+ * at 10k, 100k and 1M activities spread over a metro area.
+ *
+ * <p>The full scan does in process what the native nearby query did per
+ * request: a spherical distance for every OPEN row, then a sort. It leaves
+ * out MySQL's row access, network and result mapping, so the database path
+ * is slower than it shows, never faster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ActivityGeoIndexBenchmark {
+
+  // Roughly 110 x 90 km around Seoul
+  private static final double MIN_LAT = 37.0;
+  private static final double MIN_LON = 126.5;
+  private static final double SPAN_DEGREES = 1.0;
+  private static final double RADIUS_KM = 2.0;
+  private static final int QUERIES = 1024;
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+
+  @Param({ "10000", "100000", "1000000" })
+  private int activities;
+
+  private ActivityGeoIndex index;
+  private double[] latitudes;
+  private double[] longitudes;
+  private double[] queryLatitudes;
+  private double[] queryLongitudes;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    index = new ActivityGeoIndex(0.02);
+    latitudes = new double[activities];
+    longitudes = new double[activities];
+    for (int i = 0; i < activities; i++) {
+      latitudes[i] = MIN_LAT + random.nextDouble() * SPAN_DEGREES;
+      longitudes[i] = MIN_LON + random.nextDouble() * SPAN_DEGREES;
+      index.upsert(new IndexedActivity(i + 1, latitudes[i], longitudes[i], TYPES[i % TYPES.length],
+          ActivityStatus.OPEN, 1, 10, 0L));
+    }
+    index.markReady();
+
+    queryLatitudes = new double[QUERIES];
+    queryLongitudes = new double[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      queryLatitudes[i] = MIN_LAT + random.nextDouble() * SPAN_DEGREES;
+      queryLongitudes[i] = MIN_LON + random.nextDouble() * SPAN_DEGREES;
+    }
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> grid() {
+    int query = nextQuery();
+    return index.findNearby(queryLatitudes[query], queryLongitudes[query], RADIUS_KM, null);
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> gridByType() {
+    int query = nextQuery();
+    return index.findNearby(queryLatitudes[query], queryLongitudes[query], RADIUS_KM, TYPES[query % TYPES.length]);
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> fullScan() {
+    int query = nextQuery();
+    double latitude = queryLatitudes[query];
+    double longitude = queryLongitudes[query];
+    List<NearbyCandidate> results = new ArrayList<>();
+    for (int i = 0; i < activities; i++) {
+      double distance = GeoUtils.haversineKm(latitude, longitude, latitudes[i], longitudes[i]);
+      if (distance <= RADIUS_KM) {
+        results.add(new NearbyCandidate(i + 1, distance));
+      }
+    }
+    results.sort(Comparator.comparingDouble(NearbyCandidate::getDistanceKm));
+    return results;
+  }
+
+  private int nextQuery() {
+    next = (next + 1) & (QUERIES - 1);
+    return next;
+  }
+
+}
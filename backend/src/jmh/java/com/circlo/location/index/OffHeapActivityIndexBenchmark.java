@@ -0,0 +1,203 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * GC cost of holding a few million OPEN activities on the heap in the grid
+ * ({@link ActivityGeoIndex}) against the memory-mapped
+ * {@link OffHeapActivityIndex}, under the same steady load: nearby queries
+ * with one activity change per 16 queries, and for the off-heap index its
+ * compaction running every second as the scheduler would. Meant to be run
+ * with the GC profiler:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="OffHeapActivityIndexBenchmark -prof gc"
+ * </pre>
+ *
+ * <p>Each trial also prints the heap still in use after loading and a full
+ * collection, which is what every later collection has to account for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+UseG1GC"})
+public class OffHeapActivityIndexBenchmark {
+
+  // Roughly 110 x 90 km around Seoul
+  private static final double MIN_LAT = 37.0;
+  private static final double MIN_LON = 126.5;
+  private static final double SPAN_DEGREES = 1.0;
+  private static final double RADIUS_KM = 2.0;
+  private static final int QUERIES = 1024;
+  private static final int LOAD_BATCH_SIZE = 5000;
+  private static final LocalDateTime SCHEDULED = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+
+  @Param({ "1000000", "3000000" })
+  private int activities;
+
+  @Param({ "grid", "offHeap" })
+  private String index;
+
+  private ActivityGeoIndex grid;
+  private OffHeapActivityIndex offHeap;
+  private ScheduledExecutorService compactor;
+  private Path directory;
+  private double[] queryLatitudes;
+  private double[] queryLongitudes;
+  private SplittableRandom changes;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    if ("grid".equals(index)) {
+      grid = new ActivityGeoIndex(0.02);
+      forEachBatch(batch -> batch.forEach(activity -> grid.upsert(IndexedActivity.from(ActivityChangedEvent.of(activity)))));
+      grid.markReady();
+    } else {
+      directory = Files.createTempDirectory("circlo-offheap-bench");
+      OpenActivityLoader loader = new OpenActivityLoader(null, null, null) {
+        @Override
+        public int forEachBatch(int batchSize, Consumer<List<Activity>> consumer) {
+          return OffHeapActivityIndexBenchmark.this.forEachBatch(consumer);
+        }
+      };
+      offHeap = new OffHeapActivityIndex(loader, new SimpleMeterRegistry());
+      ReflectionTestUtils.setField(offHeap, "enabled", true);
+      ReflectionTestUtils.setField(offHeap, "directory", directory.toString());
+      ReflectionTestUtils.setField(offHeap, "compactThreshold", 10_000);
+      ReflectionTestUtils.setField(offHeap, "loadBatchSize", LOAD_BATCH_SIZE);
+      offHeap.load();
+      compactor = Executors.newSingleThreadScheduledExecutor();
+      compactor.scheduleWithFixedDelay(offHeap::compact, 1, 1, TimeUnit.SECONDS);
+    }
+
+    System.gc();
+    long retained = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    System.out.printf("%n%s with %d activities: %d MB of heap in use after a full GC%n",
+        index, activities, retained >> 20);
+
+    SplittableRandom random = new SplittableRandom(7);
+    queryLatitudes = new double[QUERIES];
+    queryLongitudes = new double[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      queryLatitudes[i] = MIN_LAT + random.nextDouble() * SPAN_DEGREES;
+      queryLongitudes[i] = MIN_LON + random.nextDouble() * SPAN_DEGREES;
+    }
+    changes = new SplittableRandom(11);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (compactor != null) {
+      compactor.shutdownNow();
+    }
+    if (directory != null) {
+      try (Stream<Path> files = Files.walk(directory)) {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+    }
+  }
+
+  @Benchmark
+  public List<NearbyCandidate> nearbyWithChanges() {
+    next = (next + 1) & (QUERIES - 1);
+    if ((next & 15) == 0) {
+      change();
+    }
+    return "grid".equals(index)
+        ? grid.findNearby(queryLatitudes[next], queryLongitudes[next], RADIUS_KM, null)
+        : offHeap.findNearby(queryLatitudes[next], queryLongitudes[next], RADIUS_KM, null);
+  }
+
+  // An activity opening at a new spot or closing, as ActivityGeoIndexListener applies them
+  private void change() {
+    ActivityChangedEvent event = ActivityChangedEvent.builder()
+        .activityId(1L + changes.nextInt(activities))
+        .type(TYPES[changes.nextInt(TYPES.length)])
+        .status(changes.nextInt(4) == 0 ? ActivityStatus.CLOSED : ActivityStatus.OPEN)
+        .latitude(MIN_LAT + changes.nextDouble() * SPAN_DEGREES)
+        .longitude(MIN_LON + changes.nextDouble() * SPAN_DEGREES)
+        .currentMembers(1)
+        .maxMembers(10)
+        .scheduledDate(SCHEDULED)
+        .build();
+    if ("grid".equals(index)) {
+      if (event.isOpen()) {
+        grid.upsert(IndexedActivity.from(event));
+      } else {
+        grid.remove(event.getActivityId());
+      }
+    } else {
+      offHeap.onActivityChanged(event);
+    }
+  }
+
+  private int forEachBatch(Consumer<List<Activity>> consumer) {
+    GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+    SplittableRandom random = new SplittableRandom(42);
+    List<Activity> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+    for (long id = 1; id <= activities; id++) {
+      Activity activity = Activity.builder()
+          .title("Activity " + id)
+          .description("")
+          .type(TYPES[(int) (id % TYPES.length)])
+          .maxMembers(10)
+          .location(geometryFactory.createPoint(new Coordinate(
+              MIN_LON + random.nextDouble() * SPAN_DEGREES, MIN_LAT + random.nextDouble() * SPAN_DEGREES)))
+          .scheduledDate(SCHEDULED)
+          .build();
+      activity.setId(id);
+      batch.add(activity);
+      if (batch.size() == LOAD_BATCH_SIZE) {
+        consumer.accept(batch);
+        batch = new ArrayList<>(LOAD_BATCH_SIZE);
+      }
+    }
+    if (!batch.isEmpty()) {
+      consumer.accept(batch);
+    }
+    return activities;
+  }
+
+}
@@ -0,0 +1,243 @@
+package com.circlo.location.push;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.circlo.location.util.TileMath;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request volume of clients polling /nearby against clients subscribed to
+ * tile topics, over a simulated period of activity traffic. Changes go
+ * through the real {@link ActivityTilePublisher} into a real
+ * {@link SimpleBrokerMessageHandler} holding every client's tile
+ * subscriptions, and the pushes it fans out are counted on the outbound
+ * channel; viewports are resolved to tiles the way /tiles does.
+ *
+ * <p>Polling clients send one /nearby per poll interval. Pushing clients
+ * send /tiles and one /nearby for the initial state whenever their viewport
+ * changes, then only receive pushes. Clients and activities cluster around
+ * a city centre. This is an in-process model of the traffic, not a network
+ * test: it counts requests and messages, not their latency.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.circlo.location.push.TilePushLoadSimulation \
+ *     -Djmh.args="clients=20000 minutes=60 poll-seconds=30"
+ * </pre>
+ */
+public final class TilePushLoadSimulation {
+
+  // Roughly 110 x 90 km around Seoul, with a denser centre
+  private static final double MIN_LAT = 37.0;
+  private static final double MIN_LON = 126.5;
+  private static final double SPAN_DEGREES = 1.0;
+  private static final double CENTRE_LAT = 37.55;
+  private static final double CENTRE_LON = 126.98;
+  private static final double CENTRE_SPAN_DEGREES = 0.2;
+  private static final int MAX_TILES = 64;
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+
+  private final int clients;
+  private final int minutes;
+  private final int pollSeconds;
+  private final double viewportChangeMinutes;
+  private final int changesPerMinute;
+  private final double viewportLatDegrees;
+  private final double viewportLonDegrees;
+  private final int zoom;
+
+  private final SplittableRandom random = new SplittableRandom(42);
+  private final AtomicLong pushes = new AtomicLong();
+  private final Map<Integer, List<String>> subscriptionsByClient = new HashMap<>();
+  private SimpleBrokerMessageHandler broker;
+
+  private TilePushLoadSimulation(Map<String, String> options) {
+    this.clients = Integer.parseInt(options.getOrDefault("clients", "20000"));
+    this.minutes = Integer.parseInt(options.getOrDefault("minutes", "60"));
+    this.pollSeconds = Integer.parseInt(options.getOrDefault("poll-seconds", "30"));
+    this.viewportChangeMinutes = Double.parseDouble(options.getOrDefault("viewport-change-minutes", "5"));
+    this.changesPerMinute = Integer.parseInt(options.getOrDefault("changes-per-minute", "300"));
+    // A phone screen at street level, about 2.5 x 4 km
+    this.viewportLatDegrees = Double.parseDouble(options.getOrDefault("viewport-lat-degrees", "0.035"));
+    this.viewportLonDegrees = Double.parseDouble(options.getOrDefault("viewport-lon-degrees", "0.03"));
+    this.zoom = Integer.parseInt(options.getOrDefault("zoom", "14"));
+  }
+
+  public static void main(String[] args) {
+    // Only name=value arguments are options, so the profile's default jmh.args is ignored
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator > 0) {
+        options.put(arg.substring(0, separator), arg.substring(separator + 1));
+      }
+    }
+    new TilePushLoadSimulation(options).run();
+  }
+
+  private void run() {
+    ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+    ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+    clientOutbound.subscribe(message -> {
+      if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+        pushes.incrementAndGet();
+      }
+    });
+    broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+    broker.start();
+
+    SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+    MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    converter.setObjectMapper(new ObjectMapper().findAndRegisterModules());
+    messagingTemplate.setMessageConverter(converter);
+    InlinePipeline pipeline = new InlinePipeline();
+    ActivityTilePublisher publisher = new ActivityTilePublisher(messagingTemplate, pipeline);
+    ReflectionTestUtils.setField(publisher, "enabled", true);
+    ReflectionTestUtils.setField(publisher, "zoom", zoom);
+
+    long pollingRequests = 0;
+    long pushRequests = 0;
+    long changes = 0;
+    for (int client = 0; client < clients; client++) {
+      broker.handleMessage(stompMessage(SimpMessageType.CONNECT, "client-" + client, null, null));
+      moveViewport(client);
+      pushRequests += 2;
+    }
+
+    for (int minute = 0; minute < minutes; minute++) {
+      pollingRequests += (long) clients * 60 / pollSeconds;
+      for (int client = 0; client < clients; client++) {
+        if (random.nextDouble() < 1.0 / viewportChangeMinutes) {
+          moveViewport(client);
+          pushRequests += 2;
+        }
+      }
+      for (int i = 0; i < changesPerMinute; i++) {
+        double[] location = location();
+        publisher.onActivityChanged(ActivityChangedEvent.builder()
+            .activityId(random.nextLong(1, Long.MAX_VALUE))
+            .title("Activity")
+            .type(TYPES[random.nextInt(TYPES.length)])
+            .status(random.nextInt(4) == 0 ? ActivityStatus.CLOSED : ActivityStatus.OPEN)
+            .latitude(location[0])
+            .longitude(location[1])
+            .currentMembers(1)
+            .maxMembers(10)
+            .scheduledDate(LocalDateTime.of(2030, 1, 1, 12, 0))
+            .build());
+        changes++;
+      }
+    }
+    broker.stop();
+    pipeline.close();
+
+    long subscriptions = subscriptionsByClient.values().stream().mapToLong(List::size).sum();
+    System.out.printf("%d clients over %d minutes, %d activity changes/minute, zoom %d tiles%n",
+        clients, minutes, changesPerMinute, zoom);
+    System.out.printf("  %-40s %,12d HTTP requests (%,d/min)%n",
+        "polling every " + pollSeconds + " s:", pollingRequests, pollingRequests / minutes);
+    System.out.printf("  %-40s %,12d HTTP requests (%,d/min)%n",
+        "push, viewport moves every " + viewportChangeMinutes + " min:", pushRequests, pushRequests / minutes);
+    System.out.printf("  %-40s %,12d pushes (%,d/min, %.1f per change)%n",
+        "", pushes.get(), pushes.get() / minutes, (double) pushes.get() / changes);
+    System.out.printf("  HTTP requests drop by %.1f%%, %.1f tiles subscribed per client%n",
+        100.0 * (pollingRequests - pushRequests) / pollingRequests, (double) subscriptions / clients);
+  }
+
+  // What a client does on a new viewport: GET /tiles, resubscribe, GET /nearby
+  private void moveViewport(int client) {
+    String session = "client-" + client;
+    List<String> previous = subscriptionsByClient.remove(client);
+    if (previous != null) {
+      for (String tile : previous) {
+        broker.handleMessage(stompMessage(SimpMessageType.UNSUBSCRIBE, session, tile, null));
+      }
+    }
+
+    double[] centre = location();
+    double minLat = centre[0] - viewportLatDegrees / 2;
+    double maxLat = centre[0] + viewportLatDegrees / 2;
+    int[] xs = TileMath.tileXs(centre[1] - viewportLonDegrees / 2, centre[1] + viewportLonDegrees / 2, zoom);
+    int minY = TileMath.tileY(maxLat, zoom);
+    int maxY = TileMath.tileY(minLat, zoom);
+    List<String> tiles = new ArrayList<>();
+    if ((long) xs.length * (maxY - minY + 1) <= MAX_TILES) {
+      for (int x : xs) {
+        for (int y = minY; y <= maxY; y++) {
+          tiles.add(TileMath.quadkey(x, y, zoom));
+        }
+      }
+    }
+    for (String tile : tiles) {
+      broker.handleMessage(stompMessage(SimpMessageType.SUBSCRIBE, session, tile,
+          ActivityTilePublisher.TOPIC_PREFIX + tile));
+    }
+    subscriptionsByClient.put(client, tiles);
+  }
+
+  private double[] location() {
+    if (random.nextBoolean()) {
+      return new double[]{
+          CENTRE_LAT + (random.nextDouble() - 0.5) * CENTRE_SPAN_DEGREES,
+          CENTRE_LON + (random.nextDouble() - 0.5) * CENTRE_SPAN_DEGREES};
+    }
+    return new double[]{MIN_LAT + random.nextDouble() * SPAN_DEGREES, MIN_LON + random.nextDouble() * SPAN_DEGREES};
+  }
+
+  private static Message<byte[]> stompMessage(SimpMessageType type, String session, String subscriptionId,
+      String destination) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+    accessor.setSessionId(session);
+    if (subscriptionId != null) {
+      accessor.setSubscriptionId(subscriptionId);
+    }
+    if (destination != null) {
+      accessor.setDestination(destination);
+    }
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  // Runs each effect on the calling thread, so every push is counted before the run ends
+  private static final class InlinePipeline extends ActivitySideEffectPipeline {
+
+    InlinePipeline() {
+      super(new SimpleMeterRegistry(), 1, 1);
+    }
+
+    @Override
+    public void submit(String effect, long activityId, Runnable task) {
+      task.run();
+    }
+
+    void close() {
+      try {
+        shutdown();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+  }
+
+}
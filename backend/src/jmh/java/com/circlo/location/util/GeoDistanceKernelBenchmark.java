@@ -0,0 +1,107 @@
+package com.circlo.location.util;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Radius filtering of 1k, 100k and 1M points: {@link GeoDistanceKernel}
+ * over primitive arrays against the haversine ActivityService used to run
+ * on JTS points, which converted both points to radians and took cos of
+ * the origin's latitude for every pair and allocated the origin point per
+ * request. Each op filters every point once and returns how many matched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoDistanceKernelBenchmark {
+
+  private static final double ORIGIN_LAT = 37.5;
+  private static final double ORIGIN_LON = 127.0;
+  private static final double RADIUS_KM = 2.0;
+  // Points within about 5 km of the origin, so a good share sits near the radius
+  private static final double SPREAD_DEGREES = 0.05;
+
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  @Param({ "1000", "100000", "1000000" })
+  private int points;
+
+  private double[] latitudes;
+  private double[] longitudes;
+  private Point[] locations;
+
+  @Setup
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(42);
+    latitudes = new double[points];
+    longitudes = new double[points];
+    locations = new Point[points];
+    for (int i = 0; i < points; i++) {
+      latitudes[i] = ORIGIN_LAT + (random.nextDouble() * 2 - 1) * SPREAD_DEGREES;
+      longitudes[i] = ORIGIN_LON + (random.nextDouble() * 2 - 1) * SPREAD_DEGREES;
+      locations[i] = geometryFactory.createPoint(new Coordinate(longitudes[i], latitudes[i]));
+    }
+  }
+
+  @Benchmark
+  public int kernel() {
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(ORIGIN_LAT, ORIGIN_LON, RADIUS_KM);
+    int within = 0;
+    for (int i = 0; i < points; i++) {
+      if (kernel.distanceWithin(latitudes[i], longitudes[i]) >= 0) {
+        within++;
+      }
+    }
+    return within;
+  }
+
+  @Benchmark
+  public int jtsHaversine() {
+    Point origin = geometryFactory.createPoint(new Coordinate(ORIGIN_LON, ORIGIN_LAT));
+    int within = 0;
+    for (Point location : locations) {
+      if (calculateDistance(origin, location) <= RADIUS_KM) {
+        within++;
+      }
+    }
+    return within;
+  }
+
+  // ActivityService's former distance calculation, kept as the baseline
+  private static double calculateDistance(Point p1, Point p2) {
+    double lat1 = Math.toRadians(p1.getY());
+    double lon1 = Math.toRadians(p1.getX());
+    double lat2 = Math.toRadians(p2.getY());
+    double lon2 = Math.toRadians(p2.getX());
+
+    double dLat = lat2 - lat1;
+    double dLon = lon2 - lon1;
+
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+        Math.cos(lat1) * Math.cos(lat2) *
+            Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    return GeoUtils.EARTH_RADIUS_KM * c;
+  }
+
+}
@@ -0,0 +1,88 @@
+package com.circlo.activity.config;
+
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
+import com.circlo.location.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPA can only declare plain indexes, which MySQL never uses for spatial
+ * predicates, so the SRID 4326 column and its SPATIAL index come from
+ * db/migration/V1__activity_location_spatial_index.sql. On startup this only
+ * reads: it checks on every shard that the migration has been applied and
+ * that EXPLAIN of the nearby query actually picks the index.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivitySpatialIndexVerifier {
+
+  private static final String INDEX_NAME = "idx_activity_location";
+  private static final String MIGRATION = "db/migration/V1__activity_location_spatial_index.sql";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ShardMap shardMap;
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void verifySpatialIndex() {
+    shardMap.forEachShard(this::verifySpatialIndexOnCurrentShard);
+  }
+
+  private void verifySpatialIndexOnCurrentShard() {
+    try {
+      List<Long> srids = jdbcTemplate.queryForList(
+          "SELECT SRS_ID FROM information_schema.ST_GEOMETRY_COLUMNS " +
+              "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities' AND COLUMN_NAME = 'location'",
+          Long.class);
+      List<String> indexTypes = jdbcTemplate.queryForList(
+          "SELECT INDEX_TYPE FROM information_schema.STATISTICS " +
+              "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities' AND INDEX_NAME = ?",
+          String.class, INDEX_NAME);
+
+      boolean sridSet = !srids.isEmpty() && srids.get(0) != null && srids.get(0) == 4326L;
+      boolean spatial = !indexTypes.isEmpty() && "SPATIAL".equalsIgnoreCase(indexTypes.get(0));
+      if (!sridSet || !spatial) {
+        log.error("activities.location has no SRID 4326 SPATIAL index on {}; apply {}",
+            describeShard(), MIGRATION);
+        return;
+      }
+
+      verifyQueryPlan();
+    } catch (Exception e) {
+      log.error("Could not verify the spatial index on activities.location: {}", e.getMessage());
+    }
+  }
+
+  private void verifyQueryPlan() {
+    List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+        "EXPLAIN SELECT a.id FROM activities a " +
+            "WHERE MBRContains(ST_GeomFromText(?, 4326, 'axis-order=long-lat'), a.location) " +
+            "AND a.status = 'OPEN'",
+        GeoUtils.boundingBoxWkts(0.0, 0.0, 2.0).get(0));
+
+    // Listed in possible_keys only means the optimizer considered and rejected it
+    boolean usesIndex = plan.stream().anyMatch(row -> INDEX_NAME.equals(row.get("key")));
+    if (usesIndex) {
+      log.info("Nearby query plan uses {} on {}", INDEX_NAME, describeShard());
+    } else {
+      log.warn("Nearby query plan does not use {} on {}: {}", INDEX_NAME, describeShard(), plan);
+    }
+  }
+
+  private String describeShard() {
+    String shard = ShardContext.current();
+    return shard != null ? "shard " + shard : "the database";
+  }
+
+}
@@ -1,15 +1,28 @@
 package com.circlo.activity.controller;
 
+import com.circlo.activity.dto.ActivitiesWithinDTO;
 import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.activity.dto.BatchNearbyRequest;
+import com.circlo.activity.dto.BulkActivityImportResultDTO;
 import com.circlo.activity.dto.CreateActivityRequest;
+import com.circlo.activity.dto.NearbyActivitiesPageDTO;
+import com.circlo.activity.dto.NearbyPointResultDTO;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.service.ActivityBulkImportService;
 import com.circlo.activity.service.ActivityService;
 import com.circlo.auth.config.JwtTokenUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -18,7 +31,9 @@ import java.util.List;
 public class ActivityController {
 
   private final ActivityService activityService;
+  private final ActivityBulkImportService activityBulkImportService;
   private final JwtTokenUtil jwtTokenUtil;
+  private final ObjectMapper objectMapper;
 
   @PostMapping
   public ResponseEntity<ActivityDTO> createActivity(
@@ -30,6 +45,22 @@ public class ActivityController {
     return ResponseEntity.status(HttpStatus.CREATED).body(activity);
   }
 
+  /**
+   * Creates many activities from a JSON array or an NDJSON stream of
+   * create requests. Items are validated and inserted independently, so
+   * the response reports a result for each one rather than failing the
+   * whole import.
+   */
+  @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, NearbyStreamWriter.NDJSON })
+  public ResponseEntity<BulkActivityImportResultDTO> bulkCreateActivities(
+      @RequestHeader("Authorization") String authHeader,
+      InputStream body) {
+    String token = authHeader.substring(7);
+    Long userId = jwtTokenUtil.getUserIdFromToken(token);
+    BulkActivityImportResultDTO result = activityBulkImportService.importActivities(userId, body);
+    return ResponseEntity.ok(result);
+  }
+
   @GetMapping("/nearby")
   public ResponseEntity<List<ActivityDTO>> getNearbyActivities(
       @RequestParam Double latitude,
@@ -39,6 +70,117 @@ public class ActivityController {
     return ResponseEntity.ok(activities);
   }
 
+  @GetMapping(value = "/nearby", produces = { NearbyStreamWriter.NDJSON, MediaType.TEXT_EVENT_STREAM_VALUE })
+  public ResponseEntity<StreamingResponseBody> streamNearbyActivities(
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) Double radiusKm,
+      @RequestHeader(HttpHeaders.ACCEPT) String accept,
+      Authentication authentication) {
+    boolean sse = accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    boolean admin = authentication.getAuthorities().stream()
+        .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+    double radius = activityService.resolveStreamRadiusKm(radiusKm, admin);
+    ActivityType activityType = activityService.parseType(type);
+
+    StreamingResponseBody body = out -> {
+      NearbyStreamWriter writer = new NearbyStreamWriter(out, objectMapper, sse);
+      activityService.streamNearbyActivities(latitude, longitude, activityType, radius, writer::write);
+      writer.finish();
+    };
+
+    return ResponseEntity.ok()
+        .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.parseMediaType(NearbyStreamWriter.NDJSON))
+        .body(body);
+  }
+
+  @GetMapping(value = "/nearby", params = "limit")
+  public ResponseEntity<NearbyActivitiesPageDTO> getNearbyActivitiesPage(
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam Integer limit,
+      @RequestParam(required = false) String cursor) {
+    NearbyActivitiesPageDTO page = activityService.getNearbyActivitiesPage(latitude, longitude, type, limit, cursor);
+    return ResponseEntity.ok(page);
+  }
+
+  @GetMapping(value = "/nearby", params = "k")
+  public ResponseEntity<List<ActivityDTO>> getNearestActivities(
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam Integer k) {
+    List<ActivityDTO> activities = activityService.getNearestActivities(latitude, longitude, type, k);
+    return ResponseEntity.ok(activities);
+  }
+
+  @GetMapping("/upcoming")
+  public ResponseEntity<List<ActivityDTO>> getUpcomingActivities(
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) Double hours,
+      @RequestParam(required = false) Double radiusKm,
+      @RequestParam(required = false) Integer limit) {
+    List<ActivityDTO> activities = activityService.getUpcomingActivities(
+        latitude, longitude, type, hours, radiusKm, limit);
+    return ResponseEntity.ok(activities);
+  }
+
+  @GetMapping("/within")
+  public ResponseEntity<ActivitiesWithinDTO> getActivitiesWithin(
+      @RequestParam Double minLat,
+      @RequestParam Double minLon,
+      @RequestParam Double maxLat,
+      @RequestParam Double maxLon,
+      @RequestParam(required = false) String type) {
+    ActivitiesWithinDTO activities = activityService.getActivitiesWithin(minLat, minLon, maxLat, maxLon, type);
+    return ResponseEntity.ok(activities);
+  }
+
+  @GetMapping("/trending")
+  public ResponseEntity<List<ActivityDTO>> getTrendingActivities(
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) Integer limit) {
+    List<ActivityDTO> activities = activityService.getTrendingActivities(latitude, longitude, limit);
+    return ResponseEntity.ok(activities);
+  }
+
+  @GetMapping("/nearby/ranked")
+  public ResponseEntity<List<ActivityDTO>> getRankedNearbyActivities(
+      @RequestHeader("Authorization") String authHeader,
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) Integer k) {
+    String token = authHeader.substring(7);
+    Long userId = jwtTokenUtil.getUserIdFromToken(token);
+    List<ActivityDTO> activities = activityService.getRankedNearbyActivities(userId, latitude, longitude, type, k);
+    return ResponseEntity.ok(activities);
+  }
+
+  @PostMapping("/nearby/batch")
+  public ResponseEntity<List<NearbyPointResultDTO>> getNearbyActivitiesBatch(
+      @Valid @RequestBody BatchNearbyRequest request) {
+    List<NearbyPointResultDTO> results = activityService.getNearbyActivitiesBatch(request);
+    return ResponseEntity.ok(results);
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity<List<ActivityDTO>> searchNearbyActivities(
+      @RequestParam String q,
+      @RequestParam Double latitude,
+      @RequestParam Double longitude,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) Integer limit) {
+    List<ActivityDTO> activities = activityService.searchNearbyActivities(q, latitude, longitude, type, limit);
+    return ResponseEntity.ok(activities);
+  }
+
   @GetMapping("/{activityId}")
   public ResponseEntity<ActivityDTO> getActivityById(@PathVariable Long activityId) {
     ActivityDTO activity = activityService.getActivityById(activityId);
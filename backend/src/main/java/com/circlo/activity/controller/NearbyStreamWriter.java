@@ -0,0 +1,63 @@
+package com.circlo.activity.controller;
+
+import com.circlo.activity.dto.ActivityDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes nearby activities one by one as NDJSON lines or SSE events,
+ * flushing early so the first rows reach the client while the query is
+ * still producing the rest.
+ */
+class NearbyStreamWriter {
+
+  static final String NDJSON = "application/x-ndjson";
+
+  private static final int FLUSH_EVERY = 64;
+  private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SSE_DATA = "event: activity\ndata: ".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] SSE_END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+  private final OutputStream out;
+  private final ObjectMapper objectMapper;
+  private final boolean sse;
+  private int written = 0;
+
+  NearbyStreamWriter(OutputStream out, ObjectMapper objectMapper, boolean sse) {
+    this.out = out;
+    this.objectMapper = objectMapper;
+    this.sse = sse;
+  }
+
+  void write(ActivityDTO activity) {
+    try {
+      if (sse) {
+        out.write(SSE_DATA);
+        out.write(objectMapper.writeValueAsBytes(activity));
+        out.write(SSE_END);
+      } else {
+        out.write(objectMapper.writeValueAsBytes(activity));
+        out.write(NEWLINE);
+      }
+      written++;
+      if (sse || written == 1 || written % FLUSH_EVERY == 0) {
+        out.flush();
+      }
+    } catch (IOException e) {
+      // Client went away, abort the cursor
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void finish() throws IOException {
+    if (sse) {
+      out.write(("event: complete\ndata: {\"count\":" + written + "}\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+    out.flush();
+  }
+
+}
@@ -0,0 +1,19 @@
+package com.circlo.activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivitiesWithinDTO {
+
+  private List<ActivityDTO> activities; // nearest to the box's center first
+  private Boolean truncated; // more activities are in the box than were returned
+
+}
@@ -0,0 +1,22 @@
+package com.circlo.activity.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchNearbyRequest {
+
+  @NotEmpty(message = "At least one point is required")
+  @Size(max = 20, message = "At most 20 points per request")
+  @Valid
+  private List<NearbyPointDTO> points;
+
+}
@@ -0,0 +1,20 @@
+package com.circlo.activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkActivityImportResultDTO {
+
+  private Integer created;
+  private Integer failed;
+  private List<BulkActivityItemResultDTO> results; // ordered by index
+
+}
@@ -0,0 +1,19 @@
+package com.circlo.activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkActivityItemResultDTO {
+
+  private Integer index; // position in the submitted array or stream
+  private String status; // CREATED or FAILED
+  private Long activityId; // set when created
+  private String error; // set when failed
+
+}
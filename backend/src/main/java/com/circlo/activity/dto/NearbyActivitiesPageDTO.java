@@ -0,0 +1,20 @@
+package com.circlo.activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyActivitiesPageDTO {
+
+  private List<ActivityDTO> activities;
+  private String nextCursor; // null on the last page
+  private Boolean hasMore;
+
+}
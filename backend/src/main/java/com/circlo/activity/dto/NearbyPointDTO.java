@@ -0,0 +1,27 @@
+package com.circlo.activity.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyPointDTO {
+
+  @NotNull(message = "Latitude is required")
+  @DecimalMin(value = "-90.0", message = "Latitude must be >= -90")
+  @DecimalMax(value = "90.0", message = "Latitude must be <= 90")
+  private Double latitude;
+
+  @NotNull(message = "Longitude is required")
+  @DecimalMin(value = "-180.0", message = "Longitude must be >= -180")
+  @DecimalMax(value = "180.0", message = "Longitude must be <= 180")
+  private Double longitude;
+
+  private String type;
+
+}
@@ -0,0 +1,21 @@
+package com.circlo.activity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyPointResultDTO {
+
+  private Double latitude;
+  private Double longitude;
+  private String type;
+  private List<ActivityDTO> activities;
+
+}
@@ -12,8 +12,8 @@ import java.time.LocalDateTime;
 @Table(name = "activities", indexes = {
     @Index(name = "idx_activity_type", columnList = "type"),
     @Index(name = "idx_activity_status", columnList = "status"),
-    @Index(name = "idx_activity_location", columnList = "location"),
-    @Index(name = "idx_activity_date", columnList = "scheduled_date")
+    @Index(name = "idx_activity_date", columnList = "scheduled_date"),
+    @Index(name = "idx_activity_updated_at", columnList = "updated_at")
 })
 @Getter
 @Setter
@@ -43,7 +43,8 @@ public class Activity extends BaseEntity {
   @Column(name = "max_members", nullable = false)
   private Integer maxMembers;
 
-  @Column(columnDefinition = "POINT", nullable = false)
+  // SRID 4326 with a SPATIAL index, see ActivitySpatialIndexInitializer
+  @Column(columnDefinition = "POINT SRID 4326", nullable = false)
   private Point location;
 
   @Column(name = "scheduled_date", nullable = false)
@@ -0,0 +1,56 @@
+package com.circlo.activity.event;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever an activity is created or changes status/membership.
+ * Carries a detached snapshot so listeners never touch a lazy entity after
+ * the transaction has committed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityChangedEvent {
+
+  private Long activityId;
+  private String title;
+  private String description;
+  private ActivityType type;
+  private ActivityStatus status;
+  private Double latitude;
+  private Double longitude;
+  private Integer currentMembers;
+  private Integer maxMembers;
+  private LocalDateTime scheduledDate;
+  // Committed on another node and relayed here; listeners writing shared state skip these
+  private boolean remote;
+
+  public static ActivityChangedEvent of(Activity activity) {
+    return ActivityChangedEvent.builder()
+        .activityId(activity.getId())
+        .title(activity.getTitle())
+        .description(activity.getDescription())
+        .type(activity.getType())
+        .status(activity.getStatus())
+        .latitude(activity.getLocation().getY())
+        .longitude(activity.getLocation().getX())
+        .currentMembers(activity.getCurrentMembers())
+        .maxMembers(activity.getMaxMembers())
+        .scheduledDate(activity.getScheduledDate())
+        .build();
+  }
+
+  public boolean isOpen() {
+    return status == ActivityStatus.OPEN;
+  }
+
+}
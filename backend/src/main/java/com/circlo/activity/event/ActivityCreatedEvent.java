@@ -0,0 +1,19 @@
+package com.circlo.activity.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published once when an activity is inserted, for side effects that only
+ * apply to new activities. Status changes go through
+ * {@link ActivityChangedEvent}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityCreatedEvent {
+
+  private Long activityId;
+
+}
@@ -0,0 +1,27 @@
+package com.circlo.activity.event;
+
+import com.circlo.activity.entity.Activity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published when someone engages with an activity: asks to join, is
+ * accepted or writes in its chat.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityEngagementEvent {
+
+  private Long activityId;
+  private Double latitude;
+  private Double longitude;
+  private EngagementKind kind;
+
+  public static ActivityEngagementEvent of(Activity activity, EngagementKind kind) {
+    return new ActivityEngagementEvent(
+        activity.getId(), activity.getLocation().getY(), activity.getLocation().getX(), kind);
+  }
+
+}
@@ -0,0 +1,21 @@
+package com.circlo.activity.event;
+
+/**
+ * Kinds of engagement counted towards trending, with how much each one
+ * weighs relative to a chat message.
+ */
+public enum EngagementKind {
+  CHAT_MESSAGE(1),
+  JOIN_REQUESTED(3),
+  JOIN_ACCEPTED(5);
+
+  private final int weight;
+
+  EngagementKind(int weight) {
+    this.weight = weight;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+}
@@ -0,0 +1,206 @@
+package com.circlo.activity.expiry;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.ActivityExpiryService;
+import com.circlo.activity.service.OpenActivityLoader;
+import com.circlo.common.datasource.ShardMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires OPEN activities within a tick of their scheduled date. Every OPEN
+ * activity sits in a timing wheel keyed on its scheduledDate; a one-second
+ * tick advances the wheel and hands due ids to a single bounded worker in
+ * small batches, replacing the load spike of the hourly scan.
+ */
+@Component
+@Slf4j
+public class ActivityExpiryWheel {
+
+  private final OpenActivityLoader openActivityLoader;
+  private final ActivityExpiryService activityExpiryService;
+  private final ShardMap shardMap;
+  private final HierarchicalTimingWheel wheel;
+  private final ThreadPoolExecutor worker;
+  private final Counter expiredCounter;
+  private final DistributionSummary expiryLag;
+
+  @Value("${app.activity.expiry.wheel-enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.activity.expiry.batch-size:50}")
+  private int batchSize;
+
+  @Value("${app.activity.expiry.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  public ActivityExpiryWheel(OpenActivityLoader openActivityLoader,
+      ActivityExpiryService activityExpiryService,
+      ShardMap shardMap,
+      MeterRegistry meterRegistry,
+      @Value("${app.activity.expiry.tick-millis:1000}") long tickMillis,
+      @Value("${app.activity.expiry.queue-capacity:100}") int queueCapacity) {
+    this.openActivityLoader = openActivityLoader;
+    this.activityExpiryService = activityExpiryService;
+    this.shardMap = shardMap;
+    this.wheel = new HierarchicalTimingWheel(tickMillis, 64, 4, System.currentTimeMillis());
+    this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> new Thread(runnable, "activity-expiry"));
+
+    Gauge.builder("circlo.activity.expiry.wheel.size", this, ActivityExpiryWheel::size)
+        .description("OPEN activities waiting in the expiry wheel")
+        .register(meterRegistry);
+    Gauge.builder("circlo.activity.expiry.queue.size", worker, w -> w.getQueue().size())
+        .description("Expiry batches waiting for the worker")
+        .register(meterRegistry);
+    this.expiredCounter = Counter.builder("circlo.activity.expiry.expired")
+        .description("Activities closed by the expiry worker")
+        .register(meterRegistry);
+    this.expiryLag = DistributionSummary.builder("circlo.activity.expiry.lag")
+        .description("Milliseconds between scheduledDate and the expiry being processed")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void seed() {
+    if (!enabled) {
+      return;
+    }
+
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        schedule(activity.getId(), activity.getScheduledDate());
+      }
+    });
+
+    log.info("Expiry wheel seeded with {} activities", size());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    if (event.isOpen()) {
+      // The node that committed the change owns the activity's timer
+      if (!event.isRemote()) {
+        schedule(event.getActivityId(), event.getScheduledDate());
+      }
+    } else {
+      synchronized (wheel) {
+        wheel.cancel(event.getActivityId());
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.activity.expiry.tick-millis:1000}")
+  public void tick() {
+    if (!enabled) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    Map<Long, Long> due;
+    synchronized (wheel) {
+      due = wheel.advance(now);
+    }
+
+    Map<Long, Long> batch = new LinkedHashMap<>();
+    for (Map.Entry<Long, Long> entry : due.entrySet()) {
+      batch.put(entry.getKey(), entry.getValue());
+      if (batch.size() == batchSize) {
+        submit(batch);
+        batch = new LinkedHashMap<>();
+      }
+    }
+    if (!batch.isEmpty()) {
+      submit(batch);
+    }
+  }
+
+  public int size() {
+    synchronized (wheel) {
+      return wheel.size();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    worker.shutdown();
+  }
+
+  private void schedule(long activityId, LocalDateTime scheduledDate) {
+    long now = System.currentTimeMillis();
+    long deadline = toEpochMillis(scheduledDate);
+    boolean scheduled;
+    synchronized (wheel) {
+      scheduled = wheel.schedule(activityId, deadline, now);
+    }
+    if (!scheduled) {
+      // Already past its date (e.g. while the node was down)
+      submit(Map.of(activityId, deadline));
+    }
+  }
+
+  private void submit(Map<Long, Long> deadlinesById) {
+    try {
+      worker.execute(() -> process(deadlinesById));
+    } catch (RejectedExecutionException e) {
+      // Worker is backed up, put these back so the next tick retries them
+      log.warn("Expiry worker saturated, deferring {} activities", deadlinesById.size());
+      long now = System.currentTimeMillis();
+      synchronized (wheel) {
+        deadlinesById.keySet().forEach(id -> wheel.schedule(id, now + 1, now));
+      }
+    }
+  }
+
+  private void process(Map<Long, Long> deadlinesById) {
+    try {
+      // One transaction per shard, as a transaction can't span databases
+      Map<String, List<Long>> idsByShard = new HashMap<>();
+      for (Long id : deadlinesById.keySet()) {
+        idsByShard.computeIfAbsent(shardMap.shardForId(id), shard -> new ArrayList<>()).add(id);
+      }
+      idsByShard.forEach((shard, ids) -> expiredCounter.increment(
+          shardMap.withShard(shard, () -> activityExpiryService.expireActivities(ids))));
+      long now = System.currentTimeMillis();
+      deadlinesById.values().forEach(deadline -> expiryLag.record(Math.max(0, now - deadline)));
+    } catch (Exception e) {
+      log.error("Error expiring activities {}: {}", deadlinesById.keySet(), e.getMessage(), e);
+    }
+  }
+
+  private long toEpochMillis(LocalDateTime dateTime) {
+    // scheduledDate is server-local, like the LocalDateTime.now() it is compared with
+    return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.circlo.activity.expiry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of ids keyed by a deadline in epoch millis.
+ * Level 0 has one slot per tick; every higher level's slot spans a full
+ * rotation of the level below and is cascaded down when the wheel reaches
+ * it. Scheduling, cancelling and advancing one tick are all O(1) amortized
+ * regardless of how many ids are pending.
+ *
+ * Cancelling only forgets the deadline; the stale slot entry is dropped
+ * when its slot comes up. Not thread-safe on its own.
+ */
+public class HierarchicalTimingWheel {
+
+  private final long tickMillis;
+  private final int wheelSize;
+  private final long[] levelTickMillis;
+  private final List<Set<Long>>[] levels;
+  private final Set<Long> overflow = new HashSet<>();
+  private final Map<Long, Long> deadlines = new HashMap<>();
+
+  private long currentTick;
+
+  @SuppressWarnings("unchecked")
+  public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+    this.tickMillis = tickMillis;
+    this.wheelSize = wheelSize;
+    this.levelTickMillis = new long[levelCount];
+    this.levels = new List[levelCount];
+    long levelTick = tickMillis;
+    for (int level = 0; level < levelCount; level++) {
+      levelTickMillis[level] = levelTick;
+      levels[level] = new ArrayList<>(wheelSize);
+      for (int slot = 0; slot < wheelSize; slot++) {
+        levels[level].add(new HashSet<>());
+      }
+      levelTick *= wheelSize;
+    }
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /**
+   * Schedules (or reschedules) an id. Returns false if the deadline has
+   * already passed, in which case the id is not scheduled.
+   */
+  public boolean schedule(long id, long deadlineMillis, long nowMillis) {
+    if (deadlineMillis <= nowMillis) {
+      deadlines.remove(id);
+      return false;
+    }
+    deadlines.put(id, deadlineMillis);
+    place(id, deadlineMillis);
+    return true;
+  }
+
+  public void cancel(long id) {
+    deadlines.remove(id);
+  }
+
+  /**
+   * Moves the wheel forward to {@code nowMillis} and returns every id whose
+   * deadline has passed, each exactly once, mapped to that deadline.
+   */
+  public Map<Long, Long> advance(long nowMillis) {
+    Map<Long, Long> expired = new LinkedHashMap<>();
+    long targetTick = nowMillis / tickMillis;
+
+    while (currentTick < targetTick) {
+      currentTick++;
+      long currentMillis = currentTick * tickMillis;
+
+      // Cascade from the highest level whose slot boundary we just crossed
+      for (int level = levels.length - 1; level > 0; level--) {
+        if (currentMillis % levelTickMillis[level] == 0) {
+          if (level == levels.length - 1) {
+            // Cleared first, since ids still out of range are put straight back
+            List<Long> overflowIds = new ArrayList<>(overflow);
+            overflow.clear();
+            reinsert(overflowIds, nowMillis, expired);
+          }
+          Set<Long> slot = levels[level].get(slotIndex(level, currentMillis));
+          List<Long> ids = new ArrayList<>(slot);
+          slot.clear();
+          reinsert(ids, nowMillis, expired);
+        }
+      }
+
+      Set<Long> slot = levels[0].get(slotIndex(0, currentMillis));
+      List<Long> ids = new ArrayList<>(slot);
+      slot.clear();
+      reinsert(ids, nowMillis, expired);
+    }
+
+    return expired;
+  }
+
+  public int size() {
+    return deadlines.size();
+  }
+
+  public Long deadlineOf(long id) {
+    return deadlines.get(id);
+  }
+
+  private void reinsert(List<Long> ids, long nowMillis, Map<Long, Long> expired) {
+    for (Long id : ids) {
+      Long deadline = deadlines.get(id);
+      if (deadline == null) {
+        continue; // cancelled
+      }
+      if (deadline <= nowMillis) {
+        deadlines.remove(id);
+        expired.put(id, deadline);
+      } else {
+        place(id, deadline);
+      }
+    }
+  }
+
+  private void place(long id, long deadlineMillis) {
+    long currentMillis = currentTick * tickMillis;
+    for (int level = 0; level < levels.length; level++) {
+      long ticksAway = deadlineMillis / levelTickMillis[level] - currentMillis / levelTickMillis[level];
+      if (ticksAway < wheelSize) {
+        // The current level 0 slot has already been processed, use the next one
+        long slotMillis = level == 0 && ticksAway == 0 ? currentMillis + tickMillis : deadlineMillis;
+        levels[level].get(slotIndex(level, slotMillis)).add(id);
+        return;
+      }
+    }
+    overflow.add(id);
+  }
+
+  private int slotIndex(int level, long millis) {
+    return (int) ((millis / levelTickMillis[level]) % wheelSize);
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.circlo.activity.pipeline;
+
+import com.circlo.activity.event.ActivityCreatedEvent;
+import com.circlo.chat.service.ChatService;
+import com.circlo.common.datasource.ShardMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Creates the chat group for a new activity after its insert has
+ * committed, instead of inside the creating transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityChatGroupListener {
+
+  private final ActivitySideEffectPipeline activitySideEffectPipeline;
+  private final ChatService chatService;
+  private final ShardMap shardMap;
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityCreated(ActivityCreatedEvent event) {
+    long activityId = event.getActivityId();
+    activitySideEffectPipeline.submit("chat-group", activityId, () -> {
+      String shard = shardMap.shardForId(activityId);
+      if (shardMap.withShard(shard, () -> chatService.ensureGroupForActivity(activityId))) {
+        log.info("Chat group created for activity: {}", activityId);
+      }
+    });
+  }
+
+}
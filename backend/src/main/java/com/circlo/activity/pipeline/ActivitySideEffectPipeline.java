@@ -0,0 +1,195 @@
+package com.circlo.activity.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs activity side effects (chat group creation, Redis updates, pushes)
+ * off the request thread once the transaction has committed. Work is split
+ * into single-threaded lanes by activity id, so the effects for one
+ * activity run in the order its events were published. A failed effect is
+ * retried with exponential backoff from a scheduler rather than by sleeping
+ * on its lane: the activity's later effects wait behind it, other
+ * activities on the lane carry on. Effects must therefore be idempotent.
+ * A full lane rejects new effects, counted and logged, instead of running
+ * them on the committing thread.
+ */
+@Component
+@Slf4j
+public class ActivitySideEffectPipeline {
+
+  private final MeterRegistry meterRegistry;
+  private final Lane[] lanes;
+  private final int queueCapacity;
+  private final ScheduledExecutorService retryScheduler;
+
+  @Value("${app.activity.pipeline.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.activity.pipeline.backoff-millis:200}")
+  private long backoffMillis;
+
+  public ActivitySideEffectPipeline(MeterRegistry meterRegistry,
+      @Value("${app.activity.pipeline.lanes:4}") int laneCount,
+      @Value("${app.activity.pipeline.queue-capacity:500}") int queueCapacity) {
+    this.meterRegistry = meterRegistry;
+    this.queueCapacity = queueCapacity;
+    this.lanes = new Lane[laneCount];
+    for (int i = 0; i < laneCount; i++) {
+      lanes[i] = new Lane("activity-pipeline-" + i);
+    }
+    this.retryScheduler = Executors.newSingleThreadScheduledExecutor(
+        runnable -> new Thread(runnable, "activity-pipeline-retry"));
+
+    Gauge.builder("circlo.activity.pipeline.queue.size", this, ActivitySideEffectPipeline::queueSize)
+        .description("Side effects waiting in the activity pipeline")
+        .register(meterRegistry);
+  }
+
+  public void submit(String effect, long activityId, Runnable task) {
+    Lane lane = lanes[(int) Math.floorMod(activityId, (long) lanes.length)];
+    // Retries bypass the bound, so it is checked here for new effects only
+    if (lane.executor.getQueue().size() >= queueCapacity) {
+      outcome(effect, "rejected").increment();
+      log.error("Activity pipeline lane {} is full, dropping side effect {} for activity {}",
+          lane.name, effect, activityId);
+      return;
+    }
+
+    Effect pending = new Effect(effect, activityId, task, Timer.start(meterRegistry));
+    lane.executor.execute(() -> lane.accept(pending));
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    retryScheduler.shutdownNow();
+    for (Lane lane : lanes) {
+      lane.executor.shutdown();
+    }
+    for (Lane lane : lanes) {
+      lane.executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private Counter outcome(String effect, String outcome) {
+    return Counter.builder("circlo.activity.pipeline.effects")
+        .description("Activity side effects by outcome")
+        .tag("effect", effect)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private void finish(Effect effect) {
+    effect.sample.stop(Timer.builder("circlo.activity.pipeline.duration")
+        .description("Time to run a side effect, including retries")
+        .tag("effect", effect.name)
+        .register(meterRegistry));
+  }
+
+  private int queueSize() {
+    return Arrays.stream(lanes).mapToInt(lane -> lane.executor.getQueue().size()).sum();
+  }
+
+  private static final class Effect {
+
+    private final String name;
+    private final long activityId;
+    private final Runnable task;
+    private final Timer.Sample sample;
+    private int attempt = 1;
+
+    private Effect(String name, long activityId, Runnable task, Timer.Sample sample) {
+      this.name = name;
+      this.activityId = activityId;
+      this.task = task;
+      this.sample = sample;
+    }
+
+  }
+
+  private final class Lane {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    // Activities with a retry pending -> effects queued behind it. Lane thread only.
+    private final Map<Long, Deque<Effect>> blocked = new HashMap<>();
+
+    private Lane(String name) {
+      this.name = name;
+      this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, name));
+    }
+
+    private void accept(Effect effect) {
+      Deque<Effect> waiting = blocked.get(effect.activityId);
+      if (waiting != null) {
+        waiting.add(effect);
+        return;
+      }
+      runInOrder(effect, null);
+    }
+
+    private void retry(Effect effect) {
+      runInOrder(effect, blocked.remove(effect.activityId));
+    }
+
+    /**
+     * Runs the effect, then the ones that queued up behind it, until one
+     * has to wait for a retry; that one and the rest stay blocked.
+     */
+    private void runInOrder(Effect first, Deque<Effect> waiting) {
+      for (Effect effect = first; effect != null; effect = waiting != null ? waiting.poll() : null) {
+        if (!attempt(effect)) {
+          blocked.put(effect.activityId, waiting != null ? waiting : new ArrayDeque<>());
+          return;
+        }
+      }
+    }
+
+    /**
+     * False when the effect failed and a retry has been scheduled.
+     */
+    private boolean attempt(Effect effect) {
+      try {
+        effect.task.run();
+        outcome(effect.name, "success").increment();
+        finish(effect);
+        return true;
+      } catch (Exception e) {
+        if (effect.attempt >= maxAttempts) {
+          outcome(effect.name, "failure").increment();
+          log.error("Side effect {} failed for activity {} after {} attempts: {}",
+              effect.name, effect.activityId, effect.attempt, e.getMessage(), e);
+          finish(effect);
+          return true;
+        }
+        outcome(effect.name, "retry").increment();
+        log.warn("Side effect {} failed for activity {} (attempt {}), retrying: {}",
+            effect.name, effect.activityId, effect.attempt, e.getMessage());
+        long delay = backoffMillis << (effect.attempt - 1);
+        effect.attempt++;
+        retryScheduler.schedule(() -> executor.execute(() -> retry(effect)), delay, TimeUnit.MILLISECONDS);
+        return false;
+      }
+    }
+
+  }
+
+}
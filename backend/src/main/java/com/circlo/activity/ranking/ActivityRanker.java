@@ -0,0 +1,102 @@
+package com.circlo.activity.ranking;
+
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.index.NearbyCandidate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Scores nearby candidates for one user and keeps only the best K in a
+ * bounded min-heap, so callers only ever hydrate K activities.
+ */
+@Component
+public class ActivityRanker {
+
+  private static final Comparator<ScoredCandidate> BY_SCORE = Comparator
+      .comparingDouble(ScoredCandidate::score)
+      .thenComparing(Comparator.comparingLong(ScoredCandidate::activityId).reversed());
+
+  @Value("${app.ranking.weights.distance:0.4}")
+  private double distanceWeight;
+
+  @Value("${app.ranking.weights.interest:0.3}")
+  private double interestWeight;
+
+  @Value("${app.ranking.weights.time:0.2}")
+  private double timeWeight;
+
+  @Value("${app.ranking.weights.capacity:0.1}")
+  private double capacityWeight;
+
+  @Value("${app.ranking.distance-decay-km:1.0}")
+  private double distanceDecayKm;
+
+  @Value("${app.ranking.time-decay-hours:24.0}")
+  private double timeDecayHours;
+
+  /**
+   * Returns the K best candidates, best first. Candidates the feature lookup
+   * doesn't know about are skipped.
+   */
+  public List<NearbyCandidate> topK(List<NearbyCandidate> candidates, LongFunction<IndexedActivity> features,
+      Set<ActivityType> interests, long nowEpochSecond, int k) {
+    PriorityQueue<ScoredCandidate> heap = new PriorityQueue<>(k + 1, BY_SCORE);
+
+    for (NearbyCandidate candidate : candidates) {
+      IndexedActivity activity = features.apply(candidate.getActivityId());
+      if (activity == null) {
+        continue;
+      }
+
+      double score = score(candidate.getDistanceKm(), activity, interests, nowEpochSecond);
+      if (heap.size() < k) {
+        heap.add(new ScoredCandidate(candidate, score));
+      } else if (score > heap.peek().score()) {
+        heap.poll();
+        heap.add(new ScoredCandidate(candidate, score));
+      }
+    }
+
+    List<ScoredCandidate> ranked = new ArrayList<>(heap);
+    ranked.sort(BY_SCORE.reversed());
+    List<NearbyCandidate> result = new ArrayList<>(ranked.size());
+    ranked.forEach(scored -> result.add(scored.candidate()));
+    return result;
+  }
+
+  double score(double distanceKm, IndexedActivity activity, Set<ActivityType> interests, long nowEpochSecond) {
+    double distanceScore = Math.exp(-distanceKm / distanceDecayKm);
+
+    double interestScore = interests.contains(activity.getType()) ? 1.0 : 0.0;
+
+    // Starting soon ranks higher; anything already started is not worth promoting
+    double hoursUntil = (activity.getScheduledAtEpochSecond() - nowEpochSecond) / 3600.0;
+    double timeScore = hoursUntil < 0 ? 0.0 : Math.exp(-hoursUntil / timeDecayHours);
+
+    double capacityScore = activity.getMaxMembers() > 0
+        ? (double) activity.getRemainingCapacity() / activity.getMaxMembers()
+        : 0.0;
+
+    return distanceWeight * distanceScore
+        + interestWeight * interestScore
+        + timeWeight * timeScore
+        + capacityWeight * capacityScore;
+  }
+
+  private record ScoredCandidate(NearbyCandidate candidate, double score) {
+
+    long activityId() {
+      return candidate.getActivityId();
+    }
+
+  }
+
+}
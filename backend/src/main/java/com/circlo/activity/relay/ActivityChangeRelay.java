@@ -0,0 +1,97 @@
+package com.circlo.activity.relay;
+
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Relays activity changes between application nodes over Redis pub/sub.
+ * Every change committed here is published to the channel; a change from
+ * another node is republished locally as an {@link ActivityChangedEvent}
+ * marked remote, so the in-memory indexes, the heatmap and the live tile
+ * pushes of every node follow every node's writes. Listeners that write
+ * shared state skip remote events, the committing node has done it.
+ *
+ * <p>Pub/sub is at most once: a node that loses its Redis connection
+ * misses the changes made meanwhile until its indexes are next rebuilt.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.activity.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ActivityChangeRelay implements MessageListener {
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ActivitySideEffectPipeline activitySideEffectPipeline;
+  private final String channel;
+  private final String nodeId = UUID.randomUUID().toString();
+
+  public ActivityChangeRelay(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+      ApplicationEventPublisher eventPublisher, ActivitySideEffectPipeline activitySideEffectPipeline,
+      @Value("${app.activity.relay.channel:circlo:activity:changes}") String channel) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+    this.activitySideEffectPipeline = activitySideEffectPipeline;
+    this.channel = channel;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (event.isRemote()) {
+      return;
+    }
+
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(new RelayedChange(nodeId, event));
+    } catch (JsonProcessingException e) {
+      log.error("Could not serialize change of activity {} for relay: {}", event.getActivityId(), e.getMessage());
+      return;
+    }
+    // On the activity's lane, so other nodes receive its changes in commit order
+    activitySideEffectPipeline.submit("relay", event.getActivityId(),
+        () -> redisTemplate.convertAndSend(channel, payload));
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    RelayedChange relayed;
+    try {
+      relayed = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), RelayedChange.class);
+    } catch (Exception e) {
+      log.warn("Ignoring unreadable relayed activity change: {}", e.getMessage());
+      return;
+    }
+    if (nodeId.equals(relayed.node()) || relayed.change() == null) {
+      return;
+    }
+
+    ActivityChangedEvent change = relayed.change();
+    change.setRemote(true);
+    eventPublisher.publishEvent(change);
+  }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  record RelayedChange(String node, ActivityChangedEvent change) {
+  }
+
+}
@@ -0,0 +1,33 @@
+package com.circlo.activity.relay;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.activity.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ActivityChangeRelayConfig {
+
+  @Bean
+  public RedisMessageListenerContainer activityChangeListenerContainer(RedisConnectionFactory connectionFactory,
+      ActivityChangeRelay activityChangeRelay) {
+    // One thread, so relayed changes reach the local listeners in the order they were published
+    ThreadPoolTaskExecutor dispatcher = new ThreadPoolTaskExecutor();
+    dispatcher.setCorePoolSize(1);
+    dispatcher.setMaxPoolSize(1);
+    dispatcher.setThreadNamePrefix("activity-relay-");
+    dispatcher.setDaemon(true);
+    dispatcher.initialize();
+
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.setTaskExecutor(dispatcher);
+    container.addMessageListener(activityChangeRelay, new ChannelTopic(activityChangeRelay.getChannel()));
+    return container;
+  }
+
+}
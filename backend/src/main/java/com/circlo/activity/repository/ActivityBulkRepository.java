@@ -0,0 +1,115 @@
+package com.circlo.activity.repository;
+
+import com.circlo.activity.dto.CreateActivityRequest;
+import com.circlo.activity.entity.ActivityType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batched inserts for bulk imports. JPA can't batch inserts into IDENTITY
+ * tables, so activities go in as one explicit multi-row INSERT per batch
+ * and chat groups as a JDBC batch, which Connector/J rewrites into
+ * multi-row INSERTs when rewriteBatchedStatements is set.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityBulkRepository {
+
+  private static final String INSERT_ACTIVITY_SQL = "INSERT INTO activities "
+      + "(title, description, type, owner_id, current_members, max_members, location, scheduled_date, status, "
+      + "created_at, updated_at, version) VALUES ";
+
+  private static final String ACTIVITY_ROW = "(?, ?, ?, ?, 1, ?, ST_SRID(POINT(?, ?), 4326), ?, 'OPEN', ?, ?, 0)";
+
+  private static final String INSERT_CHAT_GROUP_SQL = "INSERT INTO chat_groups "
+      + "(name, activity_id, is_active, created_at, updated_at, version) "
+      + "VALUES (?, ?, TRUE, ?, ?, 0)";
+
+  // chat_groups.name column length
+  private static final int MAX_GROUP_NAME_LENGTH = 100;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Inserts OPEN activities owned by ownerId with one multi-row INSERT and
+   * returns their ids in request order.
+   */
+  public List<Long> insertActivities(long ownerId, List<CreateActivityRequest> requests, List<ActivityType> types,
+      LocalDateTime now) {
+    Timestamp timestamp = Timestamp.valueOf(now);
+    String sql = INSERT_ACTIVITY_SQL + String.join(", ", Collections.nCopies(requests.size(), ACTIVITY_ROW));
+    return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        int p = 1;
+        for (int i = 0; i < requests.size(); i++) {
+          CreateActivityRequest request = requests.get(i);
+          statement.setString(p++, request.getTitle());
+          statement.setString(p++, request.getDescription());
+          statement.setString(p++, types.get(i).name());
+          statement.setLong(p++, ownerId);
+          statement.setInt(p++, request.getMaxMembers());
+          statement.setDouble(p++, request.getLongitude());
+          statement.setDouble(p++, request.getLatitude());
+          statement.setTimestamp(p++, Timestamp.valueOf(request.getScheduledDate()));
+          statement.setTimestamp(p++, timestamp);
+          statement.setTimestamp(p++, timestamp);
+        }
+        statement.executeUpdate();
+      }
+
+      // A single multi-row INSERT gets its ids in one run starting at
+      // LAST_INSERT_ID(), spaced by this session's auto_increment_increment.
+      // The driver's generated keys assume the increment it cached at
+      // connect time, which the shard connectionInitSql overrides.
+      try (Statement statement = connection.createStatement();
+          ResultSet result = statement.executeQuery(
+              "SELECT LAST_INSERT_ID(), @@SESSION.auto_increment_increment")) {
+        result.next();
+        long firstId = result.getLong(1);
+        long increment = result.getLong(2);
+        List<Long> ids = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+          ids.add(firstId + i * increment);
+        }
+        return ids;
+      }
+    });
+  }
+
+  /**
+   * Inserts one active chat group per activity in one batch.
+   */
+  public void insertChatGroups(List<Long> activityIds, List<String> titles, LocalDateTime now) {
+    Timestamp timestamp = Timestamp.valueOf(now);
+    jdbcTemplate.batchUpdate(INSERT_CHAT_GROUP_SQL, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement statement, int i) throws SQLException {
+        String name = titles.get(i) + " Chat";
+        statement.setString(1,
+            name.length() > MAX_GROUP_NAME_LENGTH ? name.substring(0, MAX_GROUP_NAME_LENGTH) : name);
+        statement.setLong(2, activityIds.get(i));
+        statement.setTimestamp(3, timestamp);
+        statement.setTimestamp(4, timestamp);
+      }
+
+      @Override
+      public int getBatchSize() {
+        return activityIds.size();
+      }
+    });
+  }
+
+}
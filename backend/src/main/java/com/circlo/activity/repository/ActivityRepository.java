@@ -3,12 +3,15 @@ package com.circlo.activity.repository;
 import com.circlo.activity.entity.Activity;
 import com.circlo.activity.entity.ActivityStatus;
 import com.circlo.activity.entity.ActivityType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,31 +21,120 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
 
   List<Activity> findByStatusOrderByScheduledDateAsc(ActivityStatus status);
 
+  List<Activity> findByStatusAndIdGreaterThanOrderByIdAsc(ActivityStatus status, Long id, Pageable pageable);
+
+  List<Activity> findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(LocalDateTime updatedAt, Long id, Pageable pageable);
+
+  @Query("SELECT a FROM Activity a JOIN FETCH a.owner WHERE a.id IN :ids")
+  List<Activity> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
   @Query("SELECT a FROM Activity a WHERE a.status = :status AND a.scheduledDate < :currentTime")
   List<Activity> findExpiredActivities(
       @Param("status") ActivityStatus status,
       @Param("currentTime") LocalDateTime currentTime);
 
-  @Query(value = "SELECT a.* FROM activities a " +
-      "WHERE a.status = 'OPEN' " +
-      "AND ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326)) <= :radiusMeters "
-      +
-      "ORDER BY ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326))", nativeQuery = true)
-  List<Activity> findNearbyActivities(
+  @Query("SELECT a FROM Activity a WHERE a.status = :status AND a.scheduledDate < :currentTime " +
+      "AND a.id > :lastId ORDER BY a.id")
+  List<Activity> findExpiredActivitiesAfter(
+      @Param("status") ActivityStatus status,
+      @Param("currentTime") LocalDateTime currentTime,
+      @Param("lastId") Long lastId,
+      Pageable pageable);
+
+  /**
+   * Closes the given activities in one statement. The status and date are
+   * re-checked so an activity cancelled since it was read is left alone.
+   * Bypasses the entity lifecycle, so the version and updatedAt are bumped
+   * here.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE Activity a SET a.status = :closed, a.closedAt = :closedAt, a.updatedAt = :closedAt, " +
+      "a.version = a.version + 1 " +
+      "WHERE a.id IN :ids AND a.status = :open AND a.scheduledDate < :closedAt")
+  int closeExpiredActivities(
+      @Param("ids") Collection<Long> ids,
+      @Param("open") ActivityStatus open,
+      @Param("closed") ActivityStatus closed,
+      @Param("closedAt") LocalDateTime closedAt);
+
+  /**
+   * Which of the given activities {@link #closeExpiredActivities} closed,
+   * told apart by the close time it stamped.
+   */
+  @Query("SELECT a.id FROM Activity a WHERE a.id IN :ids AND a.status = :closed AND a.closedAt = :closedAt")
+  List<Long> findIdsClosedAt(
+      @Param("ids") Collection<Long> ids,
+      @Param("closed") ActivityStatus closed,
+      @Param("closedAt") LocalDateTime closedAt);
+
+  /**
+   * Prefilters on the SRID 4326 spatial index with the bounding box of the
+   * search circle, then refines with the exact sphere distance, which is
+   * computed once and projected so callers don't have to recompute it.
+   * The bounding box is a long-lat WKT polygon.
+   */
+  @Query(value = "SELECT a.id AS id, " +
+      "ST_Distance_Sphere(a.location, ST_SRID(POINT(:longitude, :latitude), 4326)) AS distanceMeters " +
+      "FROM activities a " +
+      "WHERE MBRContains(ST_GeomFromText(:boundingBox, 4326, 'axis-order=long-lat'), a.location) " +
+      "AND a.status = 'OPEN' " +
+      "AND (:type IS NULL OR a.type = :type) " +
+      "HAVING distanceMeters <= :radiusMeters " +
+      "ORDER BY distanceMeters, a.id", nativeQuery = true)
+  List<NearbyActivityRow> findNearbyActivityIds(
       @Param("latitude") double latitude,
       @Param("longitude") double longitude,
-      @Param("radiusMeters") double radiusMeters);
-
-  @Query(value = "SELECT a.* FROM activities a " +
-      "WHERE a.status = 'OPEN' " +
-      "AND a.type = :type " +
-      "AND ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326)) <= :radiusMeters "
-      +
-      "ORDER BY ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326))", nativeQuery = true)
-  List<Activity> findNearbyActivitiesByType(
+      @Param("boundingBox") String boundingBox,
+      @Param("radiusMeters") double radiusMeters,
+      @Param("type") String type);
+
+  /**
+   * Keyset variant of {@link #findNearbyActivityIds}: seeks past the
+   * (whole meters, id) of the previous page's last row instead of using
+   * OFFSET, so every page costs the same. Whole meters are computed the way
+   * {@link com.circlo.location.service.NearbyCursor#distanceMeters} does,
+   * from meters / 1000, so both sides agree on every row. Pass a negative
+   * lastDistanceMeters for the first page.
+   */
+  @Query(value = "SELECT a.id AS id, " +
+      "ST_Distance_Sphere(a.location, ST_SRID(POINT(:longitude, :latitude), 4326)) AS distanceMeters " +
+      "FROM activities a " +
+      "WHERE MBRContains(ST_GeomFromText(:boundingBox, 4326, 'axis-order=long-lat'), a.location) " +
+      "AND a.status = 'OPEN' " +
+      "AND (:type IS NULL OR a.type = :type) " +
+      "HAVING distanceMeters <= :radiusMeters " +
+      "AND (FLOOR(distanceMeters / 1000 * 1000) > :lastDistanceMeters " +
+      "OR (FLOOR(distanceMeters / 1000 * 1000) = :lastDistanceMeters AND id > :lastId)) " +
+      "ORDER BY FLOOR(distanceMeters / 1000 * 1000), a.id " +
+      "LIMIT :limit", nativeQuery = true)
+  List<NearbyActivityRow> findNearbyActivityIdsAfter(
       @Param("latitude") double latitude,
       @Param("longitude") double longitude,
+      @Param("boundingBox") String boundingBox,
       @Param("radiusMeters") double radiusMeters,
-      @Param("type") String type);
+      @Param("type") String type,
+      @Param("lastDistanceMeters") long lastDistanceMeters,
+      @Param("lastId") long lastId,
+      @Param("limit") int limit);
+
+  /**
+   * OPEN activity ids inside a long-lat WKT box, answered from the spatial
+   * index alone, with their distance from the given point (normally the
+   * box's center), nearest first.
+   */
+  @Query(value = "SELECT a.id AS id, " +
+      "ST_Distance_Sphere(a.location, ST_SRID(POINT(:longitude, :latitude), 4326)) AS distanceMeters " +
+      "FROM activities a " +
+      "WHERE MBRContains(ST_GeomFromText(:boundingBox, 4326, 'axis-order=long-lat'), a.location) " +
+      "AND a.status = 'OPEN' " +
+      "AND (:type IS NULL OR a.type = :type) " +
+      "ORDER BY distanceMeters, a.id " +
+      "LIMIT :limit", nativeQuery = true)
+  List<NearbyActivityRow> findActivityIdsWithin(
+      @Param("latitude") double latitude,
+      @Param("longitude") double longitude,
+      @Param("boundingBox") String boundingBox,
+      @Param("type") String type,
+      @Param("limit") int limit);
 
 }
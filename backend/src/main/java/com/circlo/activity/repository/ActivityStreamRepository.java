@@ -0,0 +1,86 @@
+package com.circlo.activity.repository;
+
+import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.location.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.function.Consumer;
+
+/**
+ * Nearby query over a forward-only, read-only JDBC cursor. Rows are mapped
+ * straight to DTOs and handed to the consumer one at a time, so nothing
+ * accumulates on the heap however many rows match. There is deliberately
+ * no ORDER BY: sorting by distance would make MySQL read and sort every
+ * match before sending the first row, so rows arrive in index order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityStreamRepository {
+
+  private static final String NEARBY_SQL = "SELECT a.id, a.title, a.description, a.type, a.owner_id, u.name AS owner_name, "
+      + "a.current_members, a.max_members, ST_Latitude(a.location) AS latitude, ST_Longitude(a.location) AS longitude, "
+      + "a.scheduled_date, a.status, a.created_at, "
+      + "ST_Distance_Sphere(a.location, ST_SRID(POINT(?, ?), 4326)) AS distance_meters "
+      + "FROM activities a JOIN users u ON u.id = a.owner_id "
+      + "WHERE MBRContains(ST_GeomFromText(?, 4326, 'axis-order=long-lat'), a.location) "
+      + "AND a.status = 'OPEN' "
+      + "AND (? IS NULL OR a.type = ?) "
+      + "HAVING distance_meters <= ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void streamNearby(double latitude, double longitude, double radiusKm, String type,
+      Consumer<ActivityDTO> consumer) {
+    for (String box : GeoUtils.boundingBoxWkts(latitude, longitude, radiusKm)) {
+      streamBox(latitude, longitude, box, radiusKm, type, consumer);
+    }
+  }
+
+  private void streamBox(double latitude, double longitude, String box, double radiusKm, String type,
+      Consumer<ActivityDTO> consumer) {
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(
+              NEARBY_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          // Tells Connector/J to stream rows instead of buffering the whole result
+          statement.setFetchSize(Integer.MIN_VALUE);
+          statement.setDouble(1, longitude);
+          statement.setDouble(2, latitude);
+          statement.setString(3, box);
+          statement.setString(4, type);
+          statement.setString(5, type);
+          statement.setDouble(6, radiusKm * 1000);
+          return statement;
+        },
+        (RowCallbackHandler) resultSet -> consumer.accept(mapRow(resultSet)));
+  }
+
+  private ActivityDTO mapRow(ResultSet resultSet) throws SQLException {
+    Timestamp scheduledDate = resultSet.getTimestamp("scheduled_date");
+    Timestamp createdAt = resultSet.getTimestamp("created_at");
+    return ActivityDTO.builder()
+        .id(resultSet.getLong("id"))
+        .title(resultSet.getString("title"))
+        .description(resultSet.getString("description"))
+        .type(resultSet.getString("type"))
+        .ownerId(resultSet.getLong("owner_id"))
+        .ownerName(resultSet.getString("owner_name"))
+        .currentMembers(resultSet.getInt("current_members"))
+        .maxMembers(resultSet.getInt("max_members"))
+        .latitude(resultSet.getDouble("latitude"))
+        .longitude(resultSet.getDouble("longitude"))
+        .distance(resultSet.getDouble("distance_meters") / 1000.0)
+        .scheduledDate(scheduledDate != null ? scheduledDate.toLocalDateTime() : null)
+        .status(resultSet.getString("status"))
+        .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+        .build();
+  }
+
+}
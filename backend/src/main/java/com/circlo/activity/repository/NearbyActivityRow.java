@@ -0,0 +1,9 @@
+package com.circlo.activity.repository;
+
+public interface NearbyActivityRow {
+
+  Long getId();
+
+  Double getDistanceMeters();
+
+}
@@ -0,0 +1,218 @@
+package com.circlo.activity.search;
+
+import com.circlo.location.index.NearbyCandidate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from the tokens of OPEN activities' titles and
+ * descriptions to activity ids. The term dictionary is sorted so a prefix
+ * query is a range scan. Each activity's own terms are kept as well, which
+ * lets a query verify a small set of spatial candidates directly instead of
+ * expanding a broad prefix into a large posting list. Those terms are kept
+ * as one space-led string per activity, so verifying a candidate reads one
+ * contiguous array instead of chasing a pointer per term.
+ */
+@Component
+@Slf4j
+public class ActivityTextIndex {
+
+  private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final int MAX_QUERY_TOKENS = 8;
+  private static final char TERM_SEPARATOR = ' ';
+
+  private final NavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+  // " term1 term2 ...", which contains " " + token exactly when some term starts with token
+  private final Map<Long, String> termsById = new ConcurrentHashMap<>();
+
+  private volatile boolean ready = false;
+
+  public synchronized void upsert(long activityId, String title, String description) {
+    String[] terms = tokenize(title, description);
+    String previous = termsById.put(activityId, joinTerms(terms));
+
+    Set<String> current = new HashSet<>(Arrays.asList(terms));
+    if (previous != null) {
+      for (String term : splitTerms(previous)) {
+        if (!current.contains(term)) {
+          removePosting(term, activityId);
+        }
+      }
+    }
+    for (String term : terms) {
+      postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(activityId);
+    }
+  }
+
+  public synchronized void remove(long activityId) {
+    String previous = termsById.remove(activityId);
+    if (previous != null) {
+      for (String term : splitTerms(previous)) {
+        removePosting(term, activityId);
+      }
+    }
+  }
+
+  /**
+   * Keeps the candidates, in their given order, whose text contains a term
+   * starting with every token of the query, up to {@code limit} of them.
+   */
+  public List<NearbyCandidate> filter(String query, List<NearbyCandidate> candidates, int limit) {
+    String[] tokens = queryTokens(query);
+    List<NearbyCandidate> results = new ArrayList<>();
+    if (tokens.length == 0 || candidates.isEmpty()) {
+      return results;
+    }
+
+    // If one token's postings are smaller than the candidate list, probe with those instead
+    Set<Long> narrowest = narrowestPostings(tokens, candidates.size());
+    String[] termStarts = new String[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      termStarts[i] = TERM_SEPARATOR + tokens[i];
+    }
+
+    for (NearbyCandidate candidate : candidates) {
+      long id = candidate.getActivityId();
+      if (narrowest != null && !narrowest.contains(id)) {
+        continue;
+      }
+      String terms = termsById.get(id);
+      if (terms != null && containsAll(terms, termStarts)) {
+        results.add(candidate);
+        if (results.size() == limit) {
+          break;
+        }
+      }
+    }
+    return results;
+  }
+
+  public static String[] queryTokens(String query) {
+    String[] tokens = tokenize(query, null);
+    return tokens.length > MAX_QUERY_TOKENS ? Arrays.copyOf(tokens, MAX_QUERY_TOKENS) : tokens;
+  }
+
+  public static String[] tokenize(String title, String description) {
+    Set<String> terms = new LinkedHashSet<>();
+    addTokens(title, terms);
+    addTokens(description, terms);
+    return terms.toArray(new String[0]);
+  }
+
+  public static boolean matchesAll(String[] tokens, String[] terms) {
+    for (String token : tokens) {
+      boolean found = false;
+      for (String term : terms) {
+        if (term.startsWith(token)) {
+          found = true;
+          break;
+        }
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return termsById.size();
+  }
+
+  public int termCount() {
+    return postings.size();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    this.ready = true;
+    log.info("Activity text index ready: {} activities, {} terms", size(), termCount());
+  }
+
+  private static boolean containsAll(String terms, String[] termStarts) {
+    for (String termStart : termStarts) {
+      if (!terms.contains(termStart)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String joinTerms(String[] terms) {
+    StringBuilder joined = new StringBuilder();
+    for (String term : terms) {
+      joined.append(TERM_SEPARATOR).append(term);
+    }
+    return joined.toString();
+  }
+
+  private static String[] splitTerms(String joined) {
+    return joined.isEmpty() ? new String[0] : joined.substring(1).split(String.valueOf(TERM_SEPARATOR));
+  }
+
+  private Set<Long> narrowestPostings(String[] tokens, int candidateCount) {
+    // Sized first and expanded once, so a query never builds a union it then discards
+    Map<String, Set<Long>> narrowest = null;
+    int narrowestSize = candidateCount;
+    for (String token : tokens) {
+      Map<String, Set<Long>> range = prefixRange(token);
+      int size = 0;
+      for (Set<Long> ids : range.values()) {
+        size += ids.size();
+        if (size >= narrowestSize) {
+          break;
+        }
+      }
+      if (size < narrowestSize) {
+        narrowest = range;
+        narrowestSize = size;
+      }
+    }
+    if (narrowest == null) {
+      return null;
+    }
+
+    Set<Long> union = new HashSet<>(narrowestSize * 2);
+    narrowest.values().forEach(union::addAll);
+    return union;
+  }
+
+  private Map<String, Set<Long>> prefixRange(String prefix) {
+    return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+  }
+
+  private void removePosting(String term, long activityId) {
+    postings.computeIfPresent(term, (t, ids) -> {
+      ids.remove(activityId);
+      return ids.isEmpty() ? null : ids;
+    });
+  }
+
+  private static void addTokens(String text, Set<String> terms) {
+    if (text == null || text.isBlank()) {
+      return;
+    }
+    for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+      if (!token.isEmpty()) {
+        terms.add(token);
+      }
+    }
+  }
+
+}
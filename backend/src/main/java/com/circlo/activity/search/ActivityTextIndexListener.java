@@ -0,0 +1,62 @@
+package com.circlo.activity.search;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityTextIndexListener {
+
+  private final ActivityTextIndex activityTextIndex;
+  private final OpenActivityLoader openActivityLoader;
+
+  @Value("${app.activity.search.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOpenActivities() {
+    if (!enabled) {
+      log.info("Activity text index disabled, search will match candidates from the database");
+      return;
+    }
+
+    log.info("Loading OPEN activities into text index");
+    long startTime = System.currentTimeMillis();
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        activityTextIndex.upsert(activity.getId(), activity.getTitle(), activity.getDescription());
+      }
+    });
+
+    activityTextIndex.markReady();
+    log.info("Text index loaded in {} ms", System.currentTimeMillis() - startTime);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    if (event.isOpen()) {
+      activityTextIndex.upsert(event.getActivityId(), event.getTitle(), event.getDescription());
+    } else {
+      activityTextIndex.remove(event.getActivityId());
+    }
+  }
+
+}
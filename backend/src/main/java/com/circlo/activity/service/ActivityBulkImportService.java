@@ -0,0 +1,218 @@
+package com.circlo.activity.service;
+
+import com.circlo.activity.dto.BulkActivityImportResultDTO;
+import com.circlo.activity.dto.BulkActivityItemResultDTO;
+import com.circlo.activity.dto.CreateActivityRequest;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.repository.ActivityBulkRepository;
+import com.circlo.auth.repository.UserRepository;
+import com.circlo.auth.service.UserShardReplicator;
+import com.circlo.common.datasource.ShardMap;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports activities from a JSON array or an NDJSON stream. Items are read
+ * and validated one at a time; valid ones are grouped by shard and written
+ * with their chat groups in JDBC batches, one transaction per batch, so
+ * memory stays at one batch per shard however long the input is. Every
+ * item gets its own result: a failed item or batch doesn't stop the rest.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityBulkImportService {
+
+  private final ActivityBulkRepository activityBulkRepository;
+  private final UserRepository userRepository;
+  private final ShardMap shardMap;
+  private final UserShardReplicator userShardReplicator;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${app.activity.bulk.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.activity.bulk.max-items:10000}")
+  private int maxItems;
+
+  public BulkActivityImportResultDTO importActivities(Long userId, InputStream input) {
+    log.info("Bulk importing activities for user: {}", userId);
+    if (!userRepository.existsById(userId)) {
+      throw new RuntimeException("User not found");
+    }
+
+    long startTime = System.currentTimeMillis();
+    List<BulkActivityItemResultDTO> results = new ArrayList<>();
+    Map<String, List<PendingItem>> pendingByShard = new HashMap<>();
+
+    // readValues iterates the elements of a top-level array, or whitespace-separated values (NDJSON)
+    try (MappingIterator<CreateActivityRequest> items =
+        objectMapper.readerFor(CreateActivityRequest.class).readValues(input)) {
+      int index = 0;
+      while (true) {
+        CreateActivityRequest request;
+        try {
+          if (!items.hasNextValue()) {
+            break;
+          }
+          if (index >= maxItems) {
+            results.add(failed(index, "Too many items, at most " + maxItems + " are accepted per request"));
+            break;
+          }
+          request = items.nextValue();
+        } catch (JsonMappingException e) {
+          // The iterator skips past the bad item, carry on with the next one
+          results.add(failed(index++, "Invalid item: " + e.getOriginalMessage()));
+          continue;
+        } catch (JsonProcessingException e) {
+          results.add(failed(index, "Malformed input: " + e.getOriginalMessage()));
+          break;
+        }
+
+        String error = validate(request);
+        if (error != null) {
+          results.add(failed(index++, error));
+          continue;
+        }
+
+        String shard = shardMap.shardFor(request.getLatitude(), request.getLongitude());
+        List<PendingItem> pending = pendingByShard.computeIfAbsent(shard, s -> new ArrayList<>());
+        pending.add(new PendingItem(index++, request, ActivityType.valueOf(request.getType().toUpperCase())));
+        if (pending.size() >= batchSize) {
+          results.addAll(flush(userId, shard, pending));
+          pending.clear();
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Could not read bulk import: " + e.getMessage());
+    }
+
+    pendingByShard.forEach((shard, pending) -> {
+      if (!pending.isEmpty()) {
+        results.addAll(flush(userId, shard, pending));
+      }
+    });
+
+    results.sort(Comparator.comparing(BulkActivityItemResultDTO::getIndex));
+    int created = (int) results.stream().filter(result -> result.getActivityId() != null).count();
+    long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+    log.info("Bulk import for user {}: {} created, {} failed in {} ms ({} activities/s)",
+        userId, created, results.size() - created, elapsed, created * 1000L / elapsed);
+
+    return BulkActivityImportResultDTO.builder()
+        .created(created)
+        .failed(results.size() - created)
+        .results(results)
+        .build();
+  }
+
+  private String validate(CreateActivityRequest request) {
+    if (request == null) {
+      return "Item must be an object";
+    }
+    Set<ConstraintViolation<CreateActivityRequest>> violations = validator.validate(request);
+    if (!violations.isEmpty()) {
+      return violations.stream()
+          .map(ConstraintViolation::getMessage)
+          .sorted()
+          .collect(Collectors.joining("; "));
+    }
+    try {
+      ActivityType.valueOf(request.getType().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      return "Invalid activity type: " + request.getType();
+    }
+    return null;
+  }
+
+  /**
+   * Inserts one batch and its chat groups in a single transaction on the
+   * shard. Index listeners hear about the activities once it commits.
+   */
+  private List<BulkActivityItemResultDTO> flush(Long userId, String shard, List<PendingItem> pending) {
+    List<CreateActivityRequest> requests = pending.stream().map(PendingItem::request).collect(Collectors.toList());
+    List<ActivityType> types = pending.stream().map(PendingItem::type).collect(Collectors.toList());
+    LocalDateTime now = LocalDateTime.now();
+
+    List<BulkActivityItemResultDTO> results = new ArrayList<>(pending.size());
+    try {
+      List<Long> ids = shardMap.withShard(shard, () -> transactionTemplate.execute(status -> {
+        userShardReplicator.ensureOnCurrentShard(userId);
+        List<Long> activityIds = activityBulkRepository.insertActivities(userId, requests, types, now);
+        activityBulkRepository.insertChatGroups(activityIds,
+            requests.stream().map(CreateActivityRequest::getTitle).collect(Collectors.toList()), now);
+        for (int i = 0; i < activityIds.size(); i++) {
+          eventPublisher.publishEvent(changedEvent(activityIds.get(i), requests.get(i), types.get(i)));
+        }
+        return activityIds;
+      }));
+
+      for (int i = 0; i < pending.size(); i++) {
+        results.add(BulkActivityItemResultDTO.builder()
+            .index(pending.get(i).index())
+            .status("CREATED")
+            .activityId(ids.get(i))
+            .build());
+      }
+    } catch (Exception e) {
+      log.warn("Bulk import batch of {} failed: {}", pending.size(), e.getMessage());
+      for (PendingItem item : pending) {
+        results.add(failed(item.index(), "Batch insert failed: " + e.getMessage()));
+      }
+    }
+    return results;
+  }
+
+  private ActivityChangedEvent changedEvent(Long activityId, CreateActivityRequest request, ActivityType type) {
+    return ActivityChangedEvent.builder()
+        .activityId(activityId)
+        .title(request.getTitle())
+        .description(request.getDescription())
+        .type(type)
+        .status(ActivityStatus.OPEN)
+        .latitude(request.getLatitude())
+        .longitude(request.getLongitude())
+        .currentMembers(1)
+        .maxMembers(request.getMaxMembers())
+        .scheduledDate(request.getScheduledDate())
+        .build();
+  }
+
+  private static BulkActivityItemResultDTO failed(int index, String error) {
+    return BulkActivityItemResultDTO.builder()
+        .index(index)
+        .status("FAILED")
+        .error(error)
+        .build();
+  }
+
+  private record PendingItem(int index, CreateActivityRequest request, ActivityType type) {
+  }
+
+}
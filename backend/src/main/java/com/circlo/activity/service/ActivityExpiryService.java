@@ -0,0 +1,125 @@
+package com.circlo.activity.service;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.chat.service.ChatService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityExpiryService {
+
+  private final ActivityRepository activityRepository;
+  private final ChatService chatService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${app.activity.expiry.bulk-chunk-size:500}")
+  private int bulkChunkSize;
+
+  /**
+   * Closes the given activities if they are still OPEN and past their
+   * scheduled date, and deletes their chat groups. Returns how many were
+   * closed.
+   */
+  @Transactional
+  public int expireActivities(Collection<Long> activityIds) {
+    LocalDateTime now = LocalDateTime.now();
+    List<Activity> activities = activityRepository.findAllById(activityIds);
+    int closed = 0;
+
+    for (Activity activity : activities) {
+      if (activity.getStatus() != ActivityStatus.OPEN || !activity.getScheduledDate().isBefore(now)) {
+        continue;
+      }
+
+      activity.setStatus(ActivityStatus.CLOSED);
+      activity.setClosedAt(now);
+      activityRepository.save(activity);
+      eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
+
+      chatService.deleteGroupByActivityId(activity.getId());
+      closed++;
+    }
+
+    log.info("Expired {} of {} activities", closed, activityIds.size());
+    return closed;
+  }
+
+  /**
+   * Closes every OPEN activity past its scheduled date with set-based
+   * statements: per chunk one keyset SELECT, one UPDATE and two bulk
+   * deletes for the chat messages and groups, each chunk in its own
+   * transaction. Returns how many activities were processed.
+   */
+  public int expireOverdueInBulk() {
+    // Matches the DATETIME(6) column, so the closed rows can be found again by their close time
+    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    long lastId = 0L;
+    int total = 0;
+
+    List<Activity> chunk;
+    do {
+      long afterId = lastId;
+      chunk = transactionTemplate.execute(status -> expireChunk(now, afterId));
+      if (chunk == null || chunk.isEmpty()) {
+        break;
+      }
+      lastId = chunk.get(chunk.size() - 1).getId();
+      total += chunk.size();
+    } while (chunk.size() == bulkChunkSize);
+
+    return total;
+  }
+
+  private List<Activity> expireChunk(LocalDateTime now, long afterId) {
+    List<Activity> chunk = activityRepository.findExpiredActivitiesAfter(
+        ActivityStatus.OPEN, now, afterId, PageRequest.of(0, bulkChunkSize));
+    if (chunk.isEmpty()) {
+      return chunk;
+    }
+
+    List<Long> ids = chunk.stream().map(Activity::getId).toList();
+    int closed = activityRepository.closeExpiredActivities(ids, ActivityStatus.OPEN, ActivityStatus.CLOSED, now);
+    if (closed == 0) {
+      return chunk;
+    }
+
+    // Rows cancelled or rescheduled since the select were left alone and keep their side effects
+    Set<Long> closedIds = closed == ids.size()
+        ? new HashSet<>(ids)
+        : new HashSet<>(activityRepository.findIdsClosedAt(ids, ActivityStatus.CLOSED, now));
+    chatService.deleteGroupsByActivityIds(closedIds);
+
+    // The bulk update cleared the persistence context, so these are detached snapshots
+    for (Activity activity : chunk) {
+      if (!closedIds.contains(activity.getId())) {
+        continue;
+      }
+      activity.setStatus(ActivityStatus.CLOSED);
+      activity.setClosedAt(now);
+      eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
+    }
+
+    log.debug("Bulk expired {} of {} activities after id {}", closed, chunk.size(), afterId);
+    return chunk;
+  }
+
+}
@@ -1,17 +1,40 @@
 package com.circlo.activity.service;
 
+import com.circlo.activity.dto.ActivitiesWithinDTO;
 import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.activity.dto.BatchNearbyRequest;
 import com.circlo.activity.dto.CreateActivityRequest;
+import com.circlo.activity.dto.NearbyActivitiesPageDTO;
+import com.circlo.activity.dto.NearbyPointDTO;
+import com.circlo.activity.dto.NearbyPointResultDTO;
 import com.circlo.activity.entity.Activity;
 import com.circlo.activity.entity.ActivityStatus;
 import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.event.ActivityCreatedEvent;
+import com.circlo.activity.ranking.ActivityRanker;
 import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.activity.repository.ActivityStreamRepository;
+import com.circlo.activity.search.ActivityTextIndex;
+import com.circlo.activity.timeline.ActivityTimelineIndex;
+import com.circlo.activity.trending.ActivityTrendingTracker;
 import com.circlo.auth.entity.User;
 import com.circlo.auth.repository.UserRepository;
+import com.circlo.auth.service.UserShardReplicator;
 import com.circlo.chat.service.ChatService;
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
 // import com.circlo.event.config.KafkaTopics;
 // import com.circlo.event.dto.ActivityClosedEvent;
 // import com.circlo.event.dto.ActivityCreatedEvent;
+import com.circlo.location.cache.NearbyResponseCache;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.index.NearbyCandidate;
+import com.circlo.location.service.NearbyCandidateService;
+import com.circlo.location.service.NearbyCursor;
+import com.circlo.location.service.NearbyRequestCoalescer;
+import com.circlo.location.service.NearbyResults;
+import com.circlo.location.util.GeoDistanceKernel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.geom.Coordinate;
@@ -19,13 +42,29 @@ import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.PrecisionModel;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 // import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,17 +72,56 @@ import java.util.stream.Collectors;
 public class ActivityService {
 
   private final ActivityRepository activityRepository;
+  private final ActivityStreamRepository activityStreamRepository;
   private final UserRepository userRepository;
   private final ChatService chatService;
+  private final NearbyCandidateService nearbyCandidateService;
+  private final NearbyResponseCache nearbyResponseCache;
+  private final NearbyRequestCoalescer nearbyRequestCoalescer;
+  private final ActivityRanker activityRanker;
+  private final ActivityTextIndex activityTextIndex;
+  private final ActivityTrendingTracker activityTrendingTracker;
+  private final ActivityTimelineIndex activityTimelineIndex;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ShardMap shardMap;
+  private final UserShardReplicator userShardReplicator;
+  @Qualifier("nearbyBatchExecutor")
+  private final ThreadPoolTaskExecutor nearbyBatchExecutor;
   // private final KafkaTemplate<String, Object> kafkaTemplate;
   private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
 
   @Value("${app.location.radius-km}")
   private Double radiusKm;
 
+  @Value("${app.location.stream.max-radius-km:50.0}")
+  private Double maxStreamRadiusKm;
+
+  @Value("${app.ranking.max-k:100}")
+  private int maxRankingK;
+
+  @Value("${app.location.page.max-limit:100}")
+  private int maxPageLimit;
+
+  @Value("${app.activity.timeline.max-hours:24}")
+  private double maxUpcomingHours;
+
+  @Value("${app.activity.timeline.max-radius-km:50.0}")
+  private double maxUpcomingRadiusKm;
+
+  @Value("${app.location.within.max-results:500}")
+  private int maxWithinResults;
+
+  @Value("${app.location.knn.max-k:100}")
+  private int maxNearestK;
+
+  @Value("${app.location.knn.max-radius-km:50.0}")
+  private Double maxNearestRadiusKm;
+
   @Transactional
   public ActivityDTO createActivity(Long userId, CreateActivityRequest request) {
     log.info("Creating activity for user: {}", userId);
+    ShardContext.bindToTransaction(shardMap.shardFor(request.getLatitude(), request.getLongitude()));
+    userShardReplicator.ensureOnCurrentShard(userId);
 
     User owner = userRepository.findById(userId)
         .orElseThrow(() -> new RuntimeException("User not found"));
@@ -65,14 +143,9 @@ public class ActivityService {
 
     activity = activityRepository.save(activity);
     log.info("Activity created: {}", activity.getId());
-
-    // Create chat group for the activity
-    try {
-      chatService.createGroupForActivity(activity.getId());
-      log.info("Chat group created for activity: {}", activity.getId());
-    } catch (Exception e) {
-      log.error("Error creating chat group for activity {}: {}", activity.getId(), e.getMessage());
-    }
+    eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
+    // Chat group creation runs after commit, see ActivityChatGroupListener
+    eventPublisher.publishEvent(new ActivityCreatedEvent(activity.getId()));
 
     // Publish Kafka event
     // publishActivityCreatedEvent(activity);
@@ -80,31 +153,306 @@ public class ActivityService {
     return convertToDTO(activity, null);
   }
 
+  @Transactional(readOnly = true)
   public List<ActivityDTO> getNearbyActivities(Double latitude, Double longitude, String type) {
     log.info("Fetching nearby activities for location: {}, {}", latitude, longitude);
 
-    double radiusMeters = radiusKm * 1000;
+    NearbyResponseCache.Lookup cached = nearbyResponseCache.get(latitude, longitude, radiusKm, type);
+    if (cached.isHit()) {
+      return NearbyResults.remeasure(cached.activities(), latitude, longitude, radiusKm);
+    }
+
+    // Shared results are computed over a padded radius so they cover every
+    // caller in the same cache or coalescing cell, then cut to each caller's
+    double sharedRadiusKm = radiusKm + Math.max(nearbyResponseCache.paddingKm(), nearbyRequestCoalescer.paddingKm());
+    List<ActivityDTO> shared = nearbyRequestCoalescer.execute(latitude, longitude, type, () -> {
+      List<ActivityDTO> result = findNearbyActivities(latitude, longitude, sharedRadiusKm, type);
+      nearbyResponseCache.put(cached, latitude, longitude, radiusKm, type, result);
+      return result;
+    });
+    return NearbyResults.remeasure(shared, latitude, longitude, radiusKm);
+  }
+
+  public NearbyActivitiesPageDTO getNearbyActivitiesPage(Double latitude, Double longitude, String type,
+      Integer limit, String cursor) {
+    log.info("Fetching nearby activities page for location: {}, {}", latitude, longitude);
 
-    List<Activity> activities;
-    if (type != null && !type.isEmpty()) {
-      activities = activityRepository.findNearbyActivitiesByType(
-          latitude, longitude, radiusMeters, type.toUpperCase());
-    } else {
-      activities = activityRepository.findNearbyActivities(
-          latitude, longitude, radiusMeters);
+    if (limit == null || limit < 1) {
+      throw new RuntimeException("Limit must be at least 1");
     }
+    int pageSize = Math.min(limit, maxPageLimit);
 
-    Point userLocation = geometryFactory.createPoint(new Coordinate(longitude, latitude));
+    // Fetch one extra row to learn whether another page exists
+    List<NearbyCandidate> candidates = nearbyCandidateService.findNearbyPage(
+        latitude, longitude, radiusKm, parseType(type), NearbyCursor.decode(cursor), pageSize + 1);
 
-    return activities.stream()
-        .map(activity -> {
-          double distance = calculateDistance(userLocation, activity.getLocation());
-          return convertToDTO(activity, distance);
-        })
+    boolean hasMore = candidates.size() > pageSize;
+    List<NearbyCandidate> page = hasMore ? candidates.subList(0, pageSize) : candidates;
+
+    return NearbyActivitiesPageDTO.builder()
+        .activities(hydrate(page))
+        .nextCursor(hasMore ? NearbyCursor.after(page.get(page.size() - 1)).encode() : null)
+        .hasMore(hasMore)
+        .build();
+  }
+
+  /**
+   * The k nearest activities, widening the search beyond the default radius
+   * (up to app.location.knn.max-radius-km) until k are found.
+   */
+  @Transactional(readOnly = true)
+  public List<ActivityDTO> getNearestActivities(Double latitude, Double longitude, String type, Integer k) {
+    log.info("Fetching {} nearest activities for location: {}, {}", k, latitude, longitude);
+
+    if (k == null || k < 1) {
+      throw new RuntimeException("k must be at least 1");
+    }
+    int limit = Math.min(k, maxNearestK);
+
+    return hydrate(nearbyCandidateService.findNearest(
+        latitude, longitude, parseType(type), limit, radiusKm, maxNearestRadiusKm));
+  }
+
+  /**
+   * Up to limit activities within the radius (default radius-km) that start
+   * in the next hours (default 2), soonest first.
+   */
+  @Transactional(readOnly = true)
+  public List<ActivityDTO> getUpcomingActivities(Double latitude, Double longitude, String type, Double hours,
+      Double radius, Integer limit) {
+    double window = hours != null ? hours : 2.0;
+    if (window <= 0) {
+      throw new RuntimeException("hours must be positive");
+    }
+    window = Math.min(window, maxUpcomingHours);
+    double searchRadius = Math.min(radius != null ? radius : radiusKm, maxUpcomingRadiusKm);
+    int resultLimit = Math.max(1, Math.min(limit != null ? limit : 20, maxPageLimit));
+    log.info("Fetching activities starting within {} h near {}, {}", window, latitude, longitude);
+
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime until = now.plusSeconds((long) (window * 3600));
+    ActivityType activityType = parseType(type);
+
+    if (activityTimelineIndex.isReady()) {
+      return hydrate(activityTimelineIndex.findUpcoming(latitude, longitude, searchRadius,
+          now.toEpochSecond(ZoneOffset.UTC), until.toEpochSecond(ZoneOffset.UTC), activityType, resultLimit));
+    }
+
+    return hydrate(nearbyCandidateService.findNearby(latitude, longitude, searchRadius, activityType)).stream()
+        .filter(dto -> !dto.getScheduledDate().isBefore(now) && dto.getScheduledDate().isBefore(until))
+        .sorted(Comparator.comparing(ActivityDTO::getScheduledDate).thenComparing(ActivityDTO::getId))
+        .limit(resultLimit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Activities with the most engagement (join requests, acceptances, chat
+   * messages) around the location over the trending window, most engaged
+   * first.
+   */
+  @Transactional(readOnly = true)
+  public List<ActivityDTO> getTrendingActivities(Double latitude, Double longitude, Integer limit) {
+    int resultLimit = Math.max(1, Math.min(limit != null ? limit : 20, maxPageLimit));
+    List<NearbyCandidate> candidates = activityTrendingTracker.trending(latitude, longitude, resultLimit).stream()
+        .map(activityId -> new NearbyCandidate(activityId, 0.0))
+        .collect(Collectors.toList());
+
+    // Trending order is kept, distances are measured once the activities are loaded
+    GeoDistanceKernel origin = GeoDistanceKernel.around(latitude, longitude, 0);
+    List<ActivityDTO> activities = hydrate(candidates);
+    activities.forEach(dto -> dto.setDistance(origin.haversine(dto.getLatitude(), dto.getLongitude())));
+    return activities;
+  }
+
+  /**
+   * Activities inside the viewport, capped at app.location.within.max-results
+   * and nearest to its center first.
+   */
+  @Transactional(readOnly = true)
+  public ActivitiesWithinDTO getActivitiesWithin(Double minLat, Double minLon, Double maxLat, Double maxLon,
+      String type) {
+    log.info("Fetching activities within {}, {} - {}, {}", minLat, minLon, maxLat, maxLon);
+    return getActivitiesWithin(minLat, minLon, maxLat, maxLon, parseType(type), maxWithinResults);
+  }
+
+  /**
+   * Up to limit activities inside the bounding box, nearest to its center
+   * first. A minLon greater than maxLon describes a box crossing the
+   * antimeridian.
+   */
+  @Transactional(readOnly = true)
+  public ActivitiesWithinDTO getActivitiesWithin(double minLat, double minLon, double maxLat, double maxLon,
+      ActivityType type, int limit) {
+    if (minLat > maxLat || minLat < -90.0 || maxLat > 90.0
+        || minLon < -180.0 || minLon > 180.0 || maxLon < -180.0 || maxLon > 180.0) {
+      throw new RuntimeException("Invalid bounding box");
+    }
+
+    // One extra row tells whether the box holds more than the cap
+    List<NearbyCandidate> candidates = nearbyCandidateService.findWithin(
+        minLat, minLon, maxLat, maxLon, type, limit + 1);
+    boolean truncated = candidates.size() > limit;
+    return ActivitiesWithinDTO.builder()
+        .activities(hydrate(truncated ? candidates.subList(0, limit) : candidates))
+        .truncated(truncated)
+        .build();
+  }
+
+  /**
+   * Nearby activities ordered by how well they suit the user rather than by
+   * distance alone. Only the top K are hydrated.
+   */
+  public List<ActivityDTO> getRankedNearbyActivities(Long userId, Double latitude, Double longitude, String type,
+      Integer k) {
+    log.info("Fetching ranked nearby activities for user {} at {}, {}", userId, latitude, longitude);
+
+    User user = userRepository.findById(userId)
+        .orElseThrow(() -> new RuntimeException("User not found"));
+    int limit = Math.max(1, Math.min(k != null ? k : 20, maxRankingK));
+
+    Set<ActivityType> interests = EnumSet.noneOf(ActivityType.class);
+    for (String interest : user.getInterests() != null ? user.getInterests() : Set.<String>of()) {
+      try {
+        interests.add(ActivityType.valueOf(interest.trim().toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        // Free-form interest with no matching activity type
+      }
+    }
+
+    List<NearbyCandidate> candidates = nearbyCandidateService.findNearby(
+        latitude, longitude, radiusKm, parseType(type));
+    long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+
+    if (nearbyCandidateService.hasLocalIndex()) {
+      List<NearbyCandidate> top = activityRanker.topK(
+          candidates, nearbyCandidateService::indexedActivity, interests, now, limit);
+      return hydrate(top);
+    }
+
+    // Without the grid the ranking features have to come from the entities themselves
+    Map<Long, Activity> activitiesById = loadOpenActivities(
+        candidates.stream().map(NearbyCandidate::getActivityId).collect(Collectors.toList()));
+    List<NearbyCandidate> top = activityRanker.topK(candidates,
+        id -> activitiesById.containsKey(id)
+            ? IndexedActivity.from(ActivityChangedEvent.of(activitiesById.get(id)))
+            : null,
+        interests, now, limit);
+    return top.stream()
+        .map(candidate -> convertToDTO(activitiesById.get(candidate.getActivityId()), candidate.getDistanceKm()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Nearby activities whose title or description contains a word starting
+   * with every word of the query, nearest first. The spatial candidates are
+   * filtered through the text index; without it the candidates are loaded
+   * and matched directly.
+   */
+  public List<ActivityDTO> searchNearbyActivities(String query, Double latitude, Double longitude, String type,
+      Integer limit) {
+    log.info("Searching activities matching '{}' near {}, {}", query, latitude, longitude);
+
+    if (ActivityTextIndex.queryTokens(query).length == 0) {
+      throw new RuntimeException("Search query must contain at least one word");
+    }
+    int resultLimit = Math.max(1, Math.min(limit != null ? limit : 20, maxPageLimit));
+
+    List<NearbyCandidate> candidates = nearbyCandidateService.findNearby(
+        latitude, longitude, radiusKm, parseType(type));
+
+    if (activityTextIndex.isReady()) {
+      return hydrate(activityTextIndex.filter(query, candidates, resultLimit));
+    }
+
+    String[] tokens = ActivityTextIndex.queryTokens(query);
+    return hydrate(candidates).stream()
+        .filter(dto -> ActivityTextIndex.matchesAll(tokens,
+            ActivityTextIndex.tokenize(dto.getTitle(), dto.getDescription())))
+        .limit(resultLimit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Validates a streaming request up front, before anything is written to
+   * the response, and returns the radius to search. Wider radii than the
+   * default are reserved for admins.
+   */
+  public double resolveStreamRadiusKm(Double requestedRadiusKm, boolean admin) {
+    if (requestedRadiusKm == null) {
+      return radiusKm;
+    }
+    if (requestedRadiusKm > radiusKm && !admin) {
+      throw new RuntimeException("Only admins can search beyond " + radiusKm + " km");
+    }
+    return Math.min(requestedRadiusKm, maxStreamRadiusKm);
+  }
+
+  /**
+   * Streams nearby activities to the consumer as rows arrive from the
+   * database, without building the result list. Rows come in no particular
+   * order: each shard the circle touches is streamed in turn, unsorted.
+   */
+  public void streamNearbyActivities(double latitude, double longitude, ActivityType type, double radius,
+      Consumer<ActivityDTO> consumer) {
+    log.info("Streaming nearby activities for location: {}, {} within {} km", latitude, longitude, radius);
+    for (String shard : shardMap.shardsFor(latitude, longitude, radius)) {
+      shardMap.withShard(shard, () -> {
+        activityStreamRepository.streamNearby(
+            latitude, longitude, radius, type != null ? type.name() : null, consumer);
+        return null;
+      });
+    }
+  }
+
+  public List<NearbyPointResultDTO> getNearbyActivitiesBatch(BatchNearbyRequest request) {
+    List<NearbyPointDTO> points = request.getPoints();
+    log.info("Fetching nearby activities for {} points", points.size());
+
+    // Resolve candidates for every point in parallel
+    List<CompletableFuture<List<NearbyCandidate>>> lookups = points.stream()
+        .map(point -> CompletableFuture.supplyAsync(
+            () -> nearbyCandidateService.findNearby(
+                point.getLatitude(), point.getLongitude(), radiusKm, parseType(point.getType())),
+            nearbyBatchExecutor))
         .collect(Collectors.toList());
+    List<List<NearbyCandidate>> candidatesPerPoint = lookups.stream()
+        .map(CompletableFuture::join)
+        .collect(Collectors.toList());
+
+    // Hydrate every distinct activity once, however many points it is near
+    Set<Long> ids = new HashSet<>();
+    candidatesPerPoint.forEach(candidates -> candidates.forEach(c -> ids.add(c.getActivityId())));
+    Map<Long, ActivityDTO> dtosById = new HashMap<>();
+    loadOpenActivities(ids).forEach((id, activity) -> dtosById.put(id, convertToDTO(activity, null)));
+
+    return IntStream.range(0, points.size())
+        .mapToObj(i -> NearbyPointResultDTO.builder()
+            .latitude(points.get(i).getLatitude())
+            .longitude(points.get(i).getLongitude())
+            .type(points.get(i).getType())
+            .activities(candidatesPerPoint.get(i).stream()
+                .filter(candidate -> dtosById.containsKey(candidate.getActivityId()))
+                .map(candidate -> dtosById.get(candidate.getActivityId()).toBuilder()
+                    .distance(candidate.getDistanceKm())
+                    .build())
+                .collect(Collectors.toList()))
+            .build())
+        .collect(Collectors.toList());
+  }
+
+  private List<ActivityDTO> findNearbyActivities(double latitude, double longitude, double radius, String type) {
+    return hydrate(nearbyCandidateService.findNearby(latitude, longitude, radius, parseType(type)));
   }
 
+  public ActivityType parseType(String type) {
+    return type != null && !type.isEmpty()
+        ? ActivityType.valueOf(type.toUpperCase())
+        : null;
+  }
+
+  @Transactional(readOnly = true)
   public ActivityDTO getActivityById(Long activityId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     Activity activity = activityRepository.findById(activityId)
         .orElseThrow(() -> new RuntimeException("Activity not found"));
 
@@ -112,16 +460,18 @@ public class ActivityService {
   }
 
   public List<ActivityDTO> getMyActivities(Long userId) {
-    List<Activity> activities = activityRepository.findByOwnerIdAndStatus(
-        userId, ActivityStatus.OPEN);
-
-    return activities.stream()
-        .map(activity -> convertToDTO(activity, null))
+    // A user's activities can be in any region, so ask every shard
+    return shardMap.allShards().stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () ->
+            activityRepository.findByOwnerIdAndStatus(userId, ActivityStatus.OPEN).stream()
+                .map(activity -> convertToDTO(activity, null))
+                .collect(Collectors.toList())).stream())
         .collect(Collectors.toList());
   }
 
   @Transactional
   public void closeActivity(Long activityId, Long userId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     Activity activity = activityRepository.findById(activityId)
         .orElseThrow(() -> new RuntimeException("Activity not found"));
 
@@ -134,6 +484,7 @@ public class ActivityService {
     activityRepository.save(activity);
 
     log.info("Activity closed: {}", activityId);
+    eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
 
     // Delete chat group when activity is closed
     try {
@@ -149,6 +500,7 @@ public class ActivityService {
 
   @Transactional
   public void cancelActivity(Long activityId, Long userId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     Activity activity = activityRepository.findById(activityId)
         .orElseThrow(() -> new RuntimeException("Activity not found"));
 
@@ -161,6 +513,7 @@ public class ActivityService {
     activityRepository.save(activity);
 
     log.info("Activity cancelled: {}", activityId);
+    eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
 
     // Delete chat group when activity is cancelled
     try {
@@ -200,24 +553,41 @@ public class ActivityService {
     // log.info("Published ActivityClosedEvent for activity: {}", activity.getId());
   }
 
-  private double calculateDistance(Point p1, Point p2) {
-    // Haversine formula to calculate distance in kilometers
-    double lat1 = Math.toRadians(p1.getY());
-    double lon1 = Math.toRadians(p1.getX());
-    double lat2 = Math.toRadians(p2.getY());
-    double lon2 = Math.toRadians(p2.getX());
+  private List<ActivityDTO> hydrate(List<NearbyCandidate> candidates) {
+    if (candidates.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Activity> activitiesById = loadOpenActivities(
+        candidates.stream().map(NearbyCandidate::getActivityId).collect(Collectors.toList()));
 
-    double dLat = lat2 - lat1;
-    double dLon = lon2 - lon1;
+    // Preserve the index ordering
+    return candidates.stream()
+        .map(candidate -> {
+          Activity activity = activitiesById.get(candidate.getActivityId());
+          return activity != null ? convertToDTO(activity, candidate.getDistanceKm()) : null;
+        })
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
 
-    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-        Math.cos(lat1) * Math.cos(lat2) *
-            Math.sin(dLon / 2) * Math.sin(dLon / 2);
+  private Map<Long, Activity> loadOpenActivities(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
 
-    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    Map<String, List<Long>> idsByShard = new HashMap<>();
+    for (Long id : ids) {
+      idsByShard.computeIfAbsent(shardMap.shardForId(id), shard -> new ArrayList<>()).add(id);
+    }
 
-    double earthRadiusKm = 6371.0;
-    return earthRadiusKm * c;
+    // Drop anything that changed status since it was indexed
+    Map<Long, Activity> activitiesById = new HashMap<>();
+    idsByShard.forEach((shard, shardIds) -> shardMap.readFromShard(shard,
+        () -> activityRepository.findAllWithOwnerByIdIn(shardIds)).stream()
+        .filter(activity -> activity.getStatus() == ActivityStatus.OPEN)
+        .forEach(activity -> activitiesById.put(activity.getId(), activity)));
+    return activitiesById;
   }
 
   private ActivityDTO convertToDTO(Activity activity, Double distance) {
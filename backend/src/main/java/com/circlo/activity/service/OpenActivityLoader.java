@@ -0,0 +1,57 @@
+package com.circlo.activity.service;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.activity.snapshot.OpenActivitySnapshot;
+import com.circlo.common.datasource.ShardMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Walks every OPEN activity in id-keyset batches, shard by shard, for the
+ * in-memory indexes that are built at startup. With snapshots enabled the
+ * batches are streamed from the {@link OpenActivitySnapshot} image instead,
+ * so the database is read once rather than once per index; indexes rebuilt
+ * after startup read the database again.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpenActivityLoader {
+
+  private final ActivityRepository activityRepository;
+  private final ShardMap shardMap;
+  private final OpenActivitySnapshot openActivitySnapshot;
+
+  /**
+   * Hands each batch of at most {@code batchSize} OPEN activities to the
+   * consumer and returns how many there were in total.
+   */
+  public int forEachBatch(int batchSize, Consumer<List<Activity>> consumer) {
+    if (openActivitySnapshot.restore()) {
+      return openActivitySnapshot.forEachBatch(batchSize, consumer);
+    }
+
+    int[] total = { 0 };
+    shardMap.forEachShard(() -> {
+      long lastId = 0L;
+      List<Activity> batch;
+      do {
+        batch = activityRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+            ActivityStatus.OPEN, lastId, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+          break;
+        }
+        consumer.accept(batch);
+        lastId = batch.get(batch.size() - 1).getId();
+        total[0] += batch.size();
+      } while (batch.size() == batchSize);
+    });
+    return total[0];
+  }
+
+}
@@ -0,0 +1,366 @@
+package com.circlo.activity.snapshot;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.common.datasource.ShardMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The OPEN activity set every startup index is built from, kept as a local
+ * binary image. The first index to load restores it: the previous image is
+ * merged with the rows updated after its high-water mark into a new one, or
+ * without a usable image the database is scanned into one. Each index then
+ * streams the image from disk, so the database is read once rather than
+ * once per index and the set is never held on the heap. Activity events
+ * seen during startup override the image; once the indexes are built they
+ * are dropped and the image is only refreshed by the periodic delta query.
+ */
+@Component
+@Slf4j
+public class OpenActivitySnapshot {
+
+  private final ActivityRepository activityRepository;
+  private final ShardMap shardMap;
+  private final MeterRegistry meterRegistry;
+  private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+  // Activities changed since startup began, closed ones included; empty once startup is over
+  private final Map<Long, ActivityChangedEvent> changedDuringStartup = new ConcurrentHashMap<>();
+  private volatile LocalDateTime highWaterMark;
+  private volatile int imageSize;
+  private volatile boolean serving = false;
+  private volatile boolean startupOver = false;
+  private boolean restoreAttempted = false;
+  private volatile long readyMillis = -1;
+
+  @Value("${app.activity.snapshot.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.activity.snapshot.file:${java.io.tmpdir}/circlo-snapshot/open-activities.snap}")
+  private String file;
+
+  @Value("${app.activity.snapshot.replay-overlap-seconds:60}")
+  private long replayOverlapSeconds;
+
+  @Value("${app.activity.snapshot.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  public OpenActivitySnapshot(ActivityRepository activityRepository, ShardMap shardMap,
+      MeterRegistry meterRegistry) {
+    this.activityRepository = activityRepository;
+    this.shardMap = shardMap;
+    this.meterRegistry = meterRegistry;
+
+    Gauge.builder("circlo.activity.snapshot.size", this, snapshot -> snapshot.imageSize)
+        .description("OPEN activities in the last snapshot image written")
+        .register(meterRegistry);
+    Gauge.builder("circlo.startup.ready", this, snapshot -> snapshot.readyMillis)
+        .description("Milliseconds from JVM start until the startup indexes were built")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Restores the image if this is the first call. False when batches have
+   * to come from the database instead: snapshots are disabled, the image
+   * couldn't be built, or startup is over.
+   */
+  public synchronized boolean restore() {
+    if (!enabled || startupOver) {
+      return false;
+    }
+    if (!restoreAttempted) {
+      restoreAttempted = true;
+      serving = buildImage();
+    }
+    return serving;
+  }
+
+  /**
+   * Hands the OPEN activities to the consumer in batches, in image order.
+   * Only valid after {@link #restore} returned true. The activities are
+   * detached copies carrying the fields the indexes read; the owner is not
+   * set.
+   */
+  public int forEachBatch(int batchSize, Consumer<List<Activity>> consumer) {
+    Batches batches = new Batches(batchSize, consumer);
+    Set<Long> changed = new HashSet<>(changedDuringStartup.keySet());
+    try {
+      OpenActivitySnapshotFile.forEach(path(), activity -> {
+        if (!changed.contains(activity.getActivityId())) {
+          batches.add(toActivity(activity));
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read activity snapshot " + path(), e);
+    }
+    for (Long id : changed) {
+      ActivityChangedEvent activity = changedDuringStartup.get(id);
+      if (activity != null && activity.isOpen()) {
+        batches.add(toActivity(activity));
+      }
+    }
+    return batches.finish();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled || startupOver) {
+      return;
+    }
+    changedDuringStartup.put(event.getActivityId(), event);
+  }
+
+  /**
+   * Merges rows changed since the high-water mark, including those written
+   * by other nodes, into a new image.
+   */
+  @Scheduled(fixedDelayString = "${app.activity.snapshot.interval-millis:300000}",
+      initialDelayString = "${app.activity.snapshot.interval-millis:300000}")
+  public void refresh() {
+    if (!enabled || !startupOver || highWaterMark == null) {
+      return;
+    }
+
+    long startTime = System.currentTimeMillis();
+    try {
+      int replayed = rewrite();
+      log.info("Refreshed activity snapshot: {} activities, {} replayed, {} ms",
+          imageSize, replayed, System.currentTimeMillis() - startTime);
+    } catch (Exception e) {
+      log.warn("Could not write activity snapshot: {}", e.getMessage());
+    }
+  }
+
+  // A deploy restarts from the image written on the way down
+  @PreDestroy
+  public void writeOnShutdown() {
+    if (enabled && highWaterMark != null) {
+      try {
+        rewrite();
+      } catch (Exception e) {
+        log.warn("Could not write activity snapshot: {}", e.getMessage());
+      }
+    }
+  }
+
+  // Runs after the startup indexes, which are ApplicationReadyEvent listeners too
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  @EventListener(ApplicationReadyEvent.class)
+  public void recordReady() {
+    readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    log.info("Startup indexes ready {} ms after JVM start", readyMillis);
+
+    synchronized (this) {
+      startupOver = true;
+      serving = false;
+    }
+    // The delta query picks these up again, the overlap covers the ones still in flight
+    changedDuringStartup.clear();
+  }
+
+  private boolean buildImage() {
+    long startTime = System.nanoTime();
+    String source = "database";
+    LocalDateTime imageMark = null;
+    try {
+      imageMark = OpenActivitySnapshotFile.verify(path());
+    } catch (Exception e) {
+      log.warn("Ignoring unreadable activity snapshot {}: {}", path(), e.getMessage());
+    }
+
+    try {
+      if (imageMark != null) {
+        source = "snapshot";
+        highWaterMark = imageMark;
+        int replayed = rewrite();
+        log.info("Restored {} OPEN activities from snapshot, replayed {} rows updated since {}",
+            imageSize, replayed, imageMark);
+      } else {
+        LocalDateTime scanStart = LocalDateTime.now();
+        try (OpenActivitySnapshotFile.Writer writer = OpenActivitySnapshotFile.Writer.open(path(), scanStart)) {
+          loadAll(writer);
+          writer.commit();
+          imageSize = writer.count();
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        highWaterMark = scanStart;
+        log.info("Loaded {} OPEN activities from the database", imageSize);
+      }
+    } catch (Exception e) {
+      log.warn("Could not build activity snapshot {}, indexes load from the database: {}",
+          path(), e.getMessage());
+      return false;
+    }
+
+    long elapsed = System.nanoTime() - startTime;
+    Timer.builder("circlo.activity.snapshot.restore")
+        .description("Time to restore the OPEN activity set at startup")
+        .tag("source", source)
+        .register(meterRegistry)
+        .record(elapsed, TimeUnit.NANOSECONDS);
+    log.info("OPEN activity set ready from {} in {} ms", source, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    return true;
+  }
+
+  private void loadAll(OpenActivitySnapshotFile.Writer writer) {
+    shardMap.forEachShard(() -> {
+      long lastId = 0L;
+      List<Activity> batch;
+      do {
+        batch = activityRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+            ActivityStatus.OPEN, lastId, PageRequest.of(0, loadBatchSize));
+        batch.forEach(activity -> append(writer, ActivityChangedEvent.of(activity)));
+        lastId = batch.isEmpty() ? lastId : batch.get(batch.size() - 1).getId();
+      } while (batch.size() == loadBatchSize);
+    });
+  }
+
+  /**
+   * Streams the current image into a new one, replacing the rows updated
+   * since the high-water mark, and moves the mark forward. Only the changed
+   * rows are held in memory. Returns how many rows were replayed; on failure
+   * the old image and mark stay in place.
+   */
+  private synchronized int rewrite() throws IOException {
+    LocalDateTime queryStart = LocalDateTime.now();
+    Map<Long, ActivityChangedEvent> changed = new HashMap<>();
+    replaySince(highWaterMark, changed);
+    try (OpenActivitySnapshotFile.Writer writer = OpenActivitySnapshotFile.Writer.open(path(), queryStart)) {
+      OpenActivitySnapshotFile.forEach(path(), activity -> {
+        if (!changed.containsKey(activity.getActivityId())) {
+          append(writer, activity);
+        }
+      });
+      for (ActivityChangedEvent activity : changed.values()) {
+        if (activity.isOpen()) {
+          append(writer, activity);
+        }
+      }
+      writer.commit();
+      imageSize = writer.count();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    highWaterMark = queryStart;
+    return changed.size();
+  }
+
+  /**
+   * Collects every row updated after since, less the overlap, which covers
+   * clock skew and transactions committing late. Replaying a row twice is
+   * harmless.
+   */
+  private void replaySince(LocalDateTime since, Map<Long, ActivityChangedEvent> changed) {
+    LocalDateTime after = since.minusSeconds(replayOverlapSeconds);
+    shardMap.forEachShard(() -> {
+      long lastId = 0L;
+      List<Activity> batch;
+      do {
+        batch = activityRepository.findByUpdatedAtAfterAndIdGreaterThanOrderByIdAsc(
+            after, lastId, PageRequest.of(0, loadBatchSize));
+        batch.forEach(activity -> changed.put(activity.getId(), ActivityChangedEvent.of(activity)));
+        lastId = batch.isEmpty() ? lastId : batch.get(batch.size() - 1).getId();
+      } while (batch.size() == loadBatchSize);
+    });
+  }
+
+  private static void append(OpenActivitySnapshotFile.Writer writer, ActivityChangedEvent activity) {
+    try {
+      writer.append(activity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Activity toActivity(ActivityChangedEvent event) {
+    Activity activity = Activity.builder()
+        .title(event.getTitle())
+        .description(event.getDescription())
+        .type(event.getType())
+        .status(event.getStatus())
+        .currentMembers(event.getCurrentMembers())
+        .maxMembers(event.getMaxMembers())
+        .location(geometryFactory.createPoint(new Coordinate(event.getLongitude(), event.getLatitude())))
+        .scheduledDate(event.getScheduledDate())
+        .build();
+    activity.setId(event.getActivityId());
+    return activity;
+  }
+
+  private Path path() {
+    return Paths.get(file);
+  }
+
+  private static final class Batches {
+
+    private final int batchSize;
+    private final Consumer<List<Activity>> consumer;
+    private List<Activity> batch;
+    private int total;
+
+    private Batches(int batchSize, Consumer<List<Activity>> consumer) {
+      this.batchSize = batchSize;
+      this.consumer = consumer;
+      this.batch = new ArrayList<>(batchSize);
+    }
+
+    private void add(Activity activity) {
+      batch.add(activity);
+      if (batch.size() == batchSize) {
+        flush();
+      }
+    }
+
+    private int finish() {
+      if (!batch.isEmpty()) {
+        flush();
+      }
+      return total;
+    }
+
+    private void flush() {
+      consumer.accept(batch);
+      total += batch.size();
+      batch = new ArrayList<>(batchSize);
+    }
+
+  }
+
+}
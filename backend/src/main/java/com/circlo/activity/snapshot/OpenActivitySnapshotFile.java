@@ -0,0 +1,180 @@
+package com.circlo.activity.snapshot;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary image of the OPEN activity set: a header with the high-water mark,
+ * one tagged record per activity, an end tag with the record count and a
+ * trailing CRC32 of everything before it. Both directions stream, so
+ * neither side needs the set in memory. Written to a temporary file and
+ * moved into place, so a crash mid-write leaves the previous image intact.
+ */
+final class OpenActivitySnapshotFile {
+
+  private static final int MAGIC = 0x43534E50; // "CSNP"
+  private static final int VERSION = 2;
+
+  private static final byte RECORD = 1;
+  private static final byte END = 0;
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+  private static final ActivityStatus[] STATUSES = ActivityStatus.values();
+
+  private OpenActivitySnapshotFile() {
+    // Utility class
+  }
+
+  /**
+   * The image's high-water mark after checking the whole file, or null if
+   * there is no file. Fails if the file is truncated, from another format
+   * version or doesn't match its checksum.
+   */
+  static LocalDateTime verify(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return null;
+    }
+    return scan(file, activity -> {
+    });
+  }
+
+  /**
+   * Hands every record to the consumer in file order and returns the
+   * high-water mark. Records are handed over before the checksum at the end
+   * is reached, so call {@link #verify} first.
+   */
+  static LocalDateTime forEach(Path file, Consumer<ActivityChangedEvent> consumer) throws IOException {
+    return scan(file, consumer);
+  }
+
+  private static LocalDateTime scan(Path file, Consumer<ActivityChangedEvent> consumer) throws IOException {
+    try (CheckedInputStream checked = new CheckedInputStream(
+        new BufferedInputStream(Files.newInputStream(file)), new CRC32());
+        DataInputStream in = new DataInputStream(checked)) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a version " + VERSION + " activity snapshot");
+      }
+      LocalDateTime highWaterMark = fromEpochMillis(in.readLong());
+
+      int count = 0;
+      for (byte tag = in.readByte(); tag == RECORD; tag = in.readByte()) {
+        consumer.accept(ActivityChangedEvent.builder()
+            .activityId(in.readLong())
+            .type(TYPES[in.readByte()])
+            .status(STATUSES[in.readByte()])
+            .latitude(in.readDouble())
+            .longitude(in.readDouble())
+            .currentMembers(in.readInt())
+            .maxMembers(in.readInt())
+            .scheduledDate(fromEpochMillis(in.readLong()))
+            .title(in.readUTF())
+            .description(in.readUTF())
+            .build());
+        count++;
+      }
+      if (in.readInt() != count) {
+        throw new IOException("Activity snapshot record count mismatch");
+      }
+
+      long expected = checked.getChecksum().getValue();
+      if (in.readLong() != expected) {
+        throw new IOException("Activity snapshot checksum mismatch");
+      }
+      return highWaterMark;
+    }
+  }
+
+  /**
+   * Appends records to a new image. Nothing replaces the current file until
+   * {@link #commit}; closing without committing discards the new one.
+   */
+  static final class Writer implements Closeable {
+
+    private final Path file;
+    private final Path temp;
+    private final CheckedOutputStream checked;
+    private final DataOutputStream out;
+    private int count;
+    private boolean committed;
+
+    private Writer(Path file, LocalDateTime highWaterMark) throws IOException {
+      Files.createDirectories(file.getParent());
+      this.file = file;
+      this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+      this.checked = new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), new CRC32());
+      this.out = new DataOutputStream(checked);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(toEpochMillis(highWaterMark));
+    }
+
+    static Writer open(Path file, LocalDateTime highWaterMark) throws IOException {
+      return new Writer(file, highWaterMark);
+    }
+
+    void append(ActivityChangedEvent activity) throws IOException {
+      out.writeByte(RECORD);
+      out.writeLong(activity.getActivityId());
+      out.writeByte(activity.getType().ordinal());
+      out.writeByte(activity.getStatus().ordinal());
+      out.writeDouble(activity.getLatitude());
+      out.writeDouble(activity.getLongitude());
+      out.writeInt(activity.getCurrentMembers());
+      out.writeInt(activity.getMaxMembers());
+      out.writeLong(toEpochMillis(activity.getScheduledDate()));
+      out.writeUTF(activity.getTitle());
+      out.writeUTF(activity.getDescription());
+      count++;
+    }
+
+    int count() {
+      return count;
+    }
+
+    void commit() throws IOException {
+      out.writeByte(END);
+      out.writeInt(count);
+      out.writeLong(checked.getChecksum().getValue());
+      out.close();
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!committed) {
+        out.close();
+        Files.deleteIfExists(temp);
+      }
+    }
+
+  }
+
+  // LocalDateTimes are stored as if UTC, which round-trips them unchanged
+  private static long toEpochMillis(LocalDateTime dateTime) {
+    return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  private static LocalDateTime fromEpochMillis(long epochMillis) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L),
+        (int) Math.floorMod(epochMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+  }
+
+}
@@ -0,0 +1,202 @@
+package com.circlo.activity.timeline;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.index.NearbyCandidate;
+import com.circlo.location.util.GeoDistanceKernel;
+import com.circlo.location.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * OPEN activities bucketed by scheduled time slot and then by lat/lon grid
+ * cell. An upcoming query walks the slots from now in time order, looks only
+ * at the cells its radius overlaps, and stops after the slot in which it
+ * has found enough activities.
+ */
+@Component
+@Slf4j
+public class ActivityTimelineIndex {
+
+  private static final Comparator<IndexedActivity> BY_START =
+      Comparator.comparingLong(IndexedActivity::getScheduledAtEpochSecond).thenComparingLong(IndexedActivity::getId);
+
+  private final long slotSeconds;
+  private final double cellSizeDegrees;
+  private final long columns;
+
+  // Slot number to cell key to the activities starting in that slot and cell
+  private final ConcurrentSkipListMap<Long, Map<Long, Map<Long, IndexedActivity>>> slots =
+      new ConcurrentSkipListMap<>();
+  private final Map<Long, IndexedActivity> activitiesById = new ConcurrentHashMap<>();
+
+  private volatile boolean ready = false;
+
+  public ActivityTimelineIndex(
+      @Value("${app.activity.timeline.slot-minutes:15}") int slotMinutes,
+      @Value("${app.activity.timeline.cell-size-degrees:0.05}") double cellSizeDegrees) {
+    this.slotSeconds = slotMinutes * 60L;
+    this.cellSizeDegrees = cellSizeDegrees;
+    this.columns = (long) Math.ceil(360.0 / cellSizeDegrees);
+  }
+
+  public void upsert(IndexedActivity activity) {
+    if (activity.getStatus() != ActivityStatus.OPEN) {
+      remove(activity.getId());
+      return;
+    }
+
+    activitiesById.compute(activity.getId(), (id, previous) -> {
+      if (previous != null) {
+        removeFromBucket(previous);
+      }
+      slots.computeIfAbsent(slot(activity.getScheduledAtEpochSecond()), s -> new ConcurrentHashMap<>())
+          .computeIfAbsent(cellKey(activity.getLatitude(), activity.getLongitude()), c -> new ConcurrentHashMap<>())
+          .put(id, activity);
+      return activity;
+    });
+  }
+
+  public void remove(long activityId) {
+    activitiesById.computeIfPresent(activityId, (id, previous) -> {
+      removeFromBucket(previous);
+      return null;
+    });
+  }
+
+  /**
+   * Drops every slot that ended before the given time. Those activities
+   * have started; expiry closes them separately.
+   */
+  public int pruneBefore(long epochSecond) {
+    NavigableMap<Long, Map<Long, Map<Long, IndexedActivity>>> past = slots.headMap(slot(epochSecond), false);
+    int pruned = 0;
+    for (Map<Long, Map<Long, IndexedActivity>> cells : past.values()) {
+      for (Map<Long, IndexedActivity> cell : cells.values()) {
+        for (IndexedActivity activity : cell.values()) {
+          if (activitiesById.remove(activity.getId(), activity)) {
+            pruned++;
+          }
+        }
+      }
+    }
+    past.clear();
+    return pruned;
+  }
+
+  /**
+   * Up to limit activities within radiusKm starting in [from, until), in
+   * start order. The candidates' distances are from the query point.
+   */
+  public List<NearbyCandidate> findUpcoming(double latitude, double longitude, double radiusKm,
+      long fromEpochSecond, long untilEpochSecond, ActivityType type, int limit) {
+    double latDelta = GeoUtils.latDeltaDegrees(radiusKm);
+    double lonDelta = GeoUtils.lonDeltaDegrees(latitude, radiusKm);
+    long minRow = row(Math.max(-90.0, latitude - latDelta));
+    long maxRow = row(Math.min(90.0, latitude + latDelta));
+    long minCol = column(longitude - lonDelta);
+    long span = lonDelta >= 180.0 ? columns - 1 : column(longitude + lonDelta) - minCol;
+    long colSpan = span < 0 ? span + columns : span;
+    long cellsInRange = (maxRow - minRow + 1) * (colSpan + 1);
+
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(latitude, longitude, radiusKm);
+    List<NearbyCandidate> results = new ArrayList<>();
+    for (Map<Long, Map<Long, IndexedActivity>> cells
+        : slots.subMap(slot(fromEpochSecond), true, slot(untilEpochSecond), true).values()) {
+      List<IndexedActivity> slotMatches = new ArrayList<>();
+      if (cells.size() < cellsInRange) {
+        // Sparse slot: check its own cells against the range
+        cells.forEach((cellKey, cell) -> {
+          long row = cellKey / columns;
+          long colOffset = Math.floorMod(cellKey % columns - minCol, columns);
+          if (row >= minRow && row <= maxRow && colOffset <= colSpan) {
+            slotMatches.addAll(cell.values());
+          }
+        });
+      } else {
+        for (long row = minRow; row <= maxRow; row++) {
+          for (long offset = 0; offset <= colSpan; offset++) {
+            Map<Long, IndexedActivity> cell = cells.get(row * columns + (minCol + offset) % columns);
+            if (cell != null) {
+              slotMatches.addAll(cell.values());
+            }
+          }
+        }
+      }
+
+      slotMatches.sort(BY_START);
+      for (IndexedActivity activity : slotMatches) {
+        long start = activity.getScheduledAtEpochSecond();
+        if (start < fromEpochSecond || start >= untilEpochSecond) {
+          continue;
+        }
+        if (type != null && activity.getType() != type) {
+          continue;
+        }
+        double distance = kernel.distanceWithin(activity.getLatitude(), activity.getLongitude());
+        if (distance >= 0) {
+          results.add(new NearbyCandidate(activity.getId(), distance));
+        }
+      }
+
+      // Later slots only start later
+      if (results.size() >= limit) {
+        break;
+      }
+    }
+
+    return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+  }
+
+  public int size() {
+    return activitiesById.size();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    this.ready = true;
+    log.info("Activity timeline index ready: {} activities in {} slots", size(), slots.size());
+  }
+
+  private void removeFromBucket(IndexedActivity activity) {
+    long cellKey = cellKey(activity.getLatitude(), activity.getLongitude());
+    slots.computeIfPresent(slot(activity.getScheduledAtEpochSecond()), (slot, cells) -> {
+      cells.computeIfPresent(cellKey, (key, cell) -> {
+        cell.remove(activity.getId());
+        return cell.isEmpty() ? null : cell;
+      });
+      return cells.isEmpty() ? null : cells;
+    });
+  }
+
+  private long slot(long epochSecond) {
+    return Math.floorDiv(epochSecond, slotSeconds);
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    return row(latitude) * columns + column(longitude);
+  }
+
+  private long row(double latitude) {
+    return (long) Math.floor((latitude + 90.0) / cellSizeDegrees);
+  }
+
+  private long column(double longitude) {
+    long col = (long) Math.floor((longitude + 180.0) / cellSizeDegrees) % columns;
+    return col < 0 ? col + columns : col;
+  }
+
+}
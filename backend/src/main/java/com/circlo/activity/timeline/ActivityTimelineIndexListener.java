@@ -0,0 +1,80 @@
+package com.circlo.activity.timeline;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import com.circlo.location.index.IndexedActivity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityTimelineIndexListener {
+
+  private final ActivityTimelineIndex activityTimelineIndex;
+  private final OpenActivityLoader openActivityLoader;
+
+  @Value("${app.activity.timeline.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOpenActivities() {
+    if (!enabled) {
+      log.info("Activity timeline index disabled, upcoming activities will be filtered from nearby results");
+      return;
+    }
+
+    log.info("Loading OPEN activities into timeline index");
+    long startTime = System.currentTimeMillis();
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        activityTimelineIndex.upsert(IndexedActivity.from(ActivityChangedEvent.of(activity)));
+      }
+    });
+
+    activityTimelineIndex.markReady();
+    log.info("Timeline index loaded in {} ms", System.currentTimeMillis() - startTime);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    if (event.isOpen()) {
+      activityTimelineIndex.upsert(IndexedActivity.from(event));
+    } else {
+      activityTimelineIndex.remove(event.getActivityId());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.activity.timeline.prune-interval-millis:60000}")
+  public void prunePastSlots() {
+    if (!enabled || !activityTimelineIndex.isReady()) {
+      return;
+    }
+
+    // scheduledDate is read as UTC, like everywhere else in the index
+    int pruned = activityTimelineIndex.pruneBefore(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC));
+    if (pruned > 0) {
+      log.debug("Pruned {} started activities from the timeline index", pruned);
+    }
+  }
+
+}
@@ -0,0 +1,237 @@
+package com.circlo.activity.trending;
+
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.event.ActivityEngagementEvent;
+import com.circlo.location.util.TileMath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Engagement velocity per activity over a sliding window, with the current
+ * leaders of every map tile. The window is a ring of count-min sketches, one
+ * per time bucket, and each tile keeps at most top-k activities, so memory
+ * is fixed by configuration rather than by the number of activities and a
+ * trending lookup only touches the tiles around the caller. Leaders whose
+ * engagement has left the window are dropped when their tile is next read
+ * or written, and by a scheduled sweep for tiles nobody touches, which
+ * takes the lock one tile at a time.
+ */
+@Component
+@Slf4j
+public class ActivityTrendingTracker {
+
+  private final boolean enabled;
+  private final CountMinSketch[] buckets;
+  private final long bucketMillis;
+  private final int tileZoom;
+  private final int topK;
+  private final int maxTiles;
+
+  // Tile key to the activities leading it, with their score when last updated
+  private final Map<Long, Map<Long, Integer>> leadersByTile = new HashMap<>();
+  private long currentBucket;
+
+  public ActivityTrendingTracker(
+      @Value("${app.activity.trending.enabled:true}") boolean enabled,
+      @Value("${app.activity.trending.window-minutes:60}") int windowMinutes,
+      @Value("${app.activity.trending.buckets:12}") int bucketCount,
+      @Value("${app.activity.trending.sketch-depth:4}") int sketchDepth,
+      @Value("${app.activity.trending.sketch-width:4096}") int sketchWidth,
+      @Value("${app.activity.trending.tile-zoom:12}") int tileZoom,
+      @Value("${app.activity.trending.top-k:20}") int topK,
+      @Value("${app.activity.trending.max-tiles:50000}") int maxTiles) {
+    this.enabled = enabled;
+    this.buckets = new CountMinSketch[bucketCount];
+    for (int i = 0; i < bucketCount; i++) {
+      buckets[i] = new CountMinSketch(sketchDepth, sketchWidth);
+    }
+    this.bucketMillis = windowMinutes * 60_000L / bucketCount;
+    this.tileZoom = tileZoom;
+    this.topK = topK;
+    this.maxTiles = maxTiles;
+    this.currentBucket = System.currentTimeMillis() / bucketMillis;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onEngagement(ActivityEngagementEvent event) {
+    if (!enabled) {
+      return;
+    }
+    record(event.getActivityId(), event.getLatitude(), event.getLongitude(), event.getKind().getWeight());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled || event.isOpen()) {
+      return;
+    }
+    synchronized (this) {
+      long tile = tileKey(event.getLatitude(), event.getLongitude());
+      Map<Long, Integer> leaders = leadersByTile.get(tile);
+      if (leaders != null) {
+        leaders.remove(event.getActivityId());
+        if (leaders.isEmpty()) {
+          leadersByTile.remove(tile);
+        }
+      }
+    }
+  }
+
+  /**
+   * Up to limit activity ids trending in the tile around the location and
+   * its eight neighbours, highest engagement first.
+   */
+  public synchronized List<Long> trending(double latitude, double longitude, int limit) {
+    if (!enabled) {
+      return List.of();
+    }
+    advance(System.currentTimeMillis());
+
+    int n = 1 << tileZoom;
+    int centerX = TileMath.tileX(longitude, tileZoom);
+    int centerY = TileMath.tileY(latitude, tileZoom);
+    Map<Long, Integer> scores = new HashMap<>();
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        int y = centerY + dy;
+        if (y < 0 || y >= n) {
+          continue;
+        }
+        Map<Long, Integer> leaders = prune(tileKey(Math.floorMod(centerX + dx, n), y));
+        if (leaders != null) {
+          scores.putAll(leaders);
+        }
+      }
+    }
+
+    List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+    ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+    List<Long> activityIds = new ArrayList<>(Math.min(limit, ranked.size()));
+    for (int i = 0; i < ranked.size() && i < limit; i++) {
+      activityIds.add(ranked.get(i).getKey());
+    }
+    return activityIds;
+  }
+
+  private synchronized void record(long activityId, double latitude, double longitude, int weight) {
+    advance(System.currentTimeMillis());
+    buckets[(int) Math.floorMod(currentBucket, (long) buckets.length)].add(activityId, weight);
+    int score = estimate(activityId);
+
+    long tile = tileKey(latitude, longitude);
+    Map<Long, Integer> leaders = prune(tile);
+    if (leaders == null) {
+      if (leadersByTile.size() >= maxTiles) {
+        log.debug("Trending tracker holds {} tiles, not tracking a new one", maxTiles);
+        return;
+      }
+      leaders = new HashMap<>();
+      leadersByTile.put(tile, leaders);
+    }
+
+    if (leaders.containsKey(activityId) || leaders.size() < topK) {
+      leaders.put(activityId, score);
+      return;
+    }
+
+    // Replace the weakest leader if this activity now beats it
+    Map.Entry<Long, Integer> weakest = null;
+    for (Map.Entry<Long, Integer> entry : leaders.entrySet()) {
+      if (weakest == null || entry.getValue() < weakest.getValue()) {
+        weakest = entry;
+      }
+    }
+    if (score > weakest.getValue()) {
+      leaders.remove(weakest.getKey());
+      leaders.put(activityId, score);
+    }
+  }
+
+  /**
+   * Drops the leaders of tiles with nothing left in the window. Runs off
+   * the request threads and releases the lock between tiles.
+   */
+  @Scheduled(fixedDelayString = "${app.activity.trending.prune-interval-millis:60000}")
+  public void pruneIdleTiles() {
+    if (!enabled) {
+      return;
+    }
+
+    List<Long> tiles;
+    synchronized (this) {
+      advance(System.currentTimeMillis());
+      tiles = new ArrayList<>(leadersByTile.keySet());
+    }
+    for (Long tile : tiles) {
+      synchronized (this) {
+        prune(tile);
+      }
+    }
+  }
+
+  /**
+   * Moves the window forward to the bucket containing now, clearing the
+   * buckets that fall out of it. Leaders are left to {@link #prune}.
+   */
+  private void advance(long now) {
+    long bucket = now / bucketMillis;
+    if (bucket <= currentBucket) {
+      return;
+    }
+
+    long steps = Math.min(bucket - currentBucket, buckets.length);
+    for (long i = 1; i <= steps; i++) {
+      buckets[(int) Math.floorMod(currentBucket + i, (long) buckets.length)].clear();
+    }
+    currentBucket = bucket;
+  }
+
+  /**
+   * Re-scores the tile's leaders against the current window and drops the
+   * ones at zero, and the tile once it has none. Returns the leaders, or
+   * null if the tile isn't tracked.
+   */
+  private Map<Long, Integer> prune(long tile) {
+    Map<Long, Integer> leaders = leadersByTile.get(tile);
+    if (leaders == null) {
+      return null;
+    }
+
+    leaders.entrySet().removeIf(entry -> {
+      int score = estimate(entry.getKey());
+      entry.setValue(score);
+      return score == 0;
+    });
+    if (leaders.isEmpty()) {
+      leadersByTile.remove(tile);
+      return null;
+    }
+    return leaders;
+  }
+
+  private int estimate(long activityId) {
+    int total = 0;
+    for (CountMinSketch bucket : buckets) {
+      total += bucket.estimate(activityId);
+    }
+    return total;
+  }
+
+  private long tileKey(double latitude, double longitude) {
+    return tileKey(TileMath.tileX(longitude, tileZoom), TileMath.tileY(latitude, tileZoom));
+  }
+
+  private static long tileKey(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+}
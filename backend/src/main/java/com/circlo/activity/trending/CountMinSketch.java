@@ -0,0 +1,59 @@
+package com.circlo.activity.trending;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size frequency sketch over long keys. Estimates never undercount and
+ * overcount by at most a small fraction of the total added, with memory
+ * fixed at depth x width counters however many keys are seen.
+ */
+class CountMinSketch {
+
+  private static final long[] SEEDS = {
+      0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+      0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL};
+
+  private final int[][] counts;
+  private final int mask;
+
+  CountMinSketch(int depth, int width) {
+    if (depth < 1 || depth > SEEDS.length) {
+      throw new IllegalArgumentException("Sketch depth must be between 1 and " + SEEDS.length);
+    }
+    if (Integer.bitCount(width) != 1) {
+      throw new IllegalArgumentException("Sketch width must be a power of two");
+    }
+    this.counts = new int[depth][width];
+    this.mask = width - 1;
+  }
+
+  void add(long key, int amount) {
+    for (int row = 0; row < counts.length; row++) {
+      counts[row][index(key, row)] += amount;
+    }
+  }
+
+  int estimate(long key) {
+    int min = Integer.MAX_VALUE;
+    for (int row = 0; row < counts.length; row++) {
+      min = Math.min(min, counts[row][index(key, row)]);
+    }
+    return min;
+  }
+
+  void clear() {
+    for (int[] row : counts) {
+      Arrays.fill(row, 0);
+    }
+  }
+
+  private int index(long key, int row) {
+    // splitmix64 finalizer, seeded per row
+    long h = key * SEEDS[row];
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) h & mask;
+  }
+
+}
@@ -0,0 +1,125 @@
+package com.circlo.auth.service;
+
+import com.circlo.auth.entity.User;
+import com.circlo.auth.repository.UserRepository;
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps copies of users on the region shards. Users live on the home
+ * shard; activities, join requests, messages and notifications on another
+ * shard reference their users by foreign key, so before a shard transaction
+ * writes such a row it copies the user over if the shard doesn't have them
+ * yet. Copies carry no password and no interests, they only serve joins,
+ * and profile changes are pushed to them after the home commit.
+ */
+@Component
+@Slf4j
+public class UserShardReplicator {
+
+  private static final String INSERT_COPY_SQL = "INSERT IGNORE INTO users "
+      + "(id, email, password, name, bio, profile_image_url, is_online, last_seen, role, enabled, "
+      + "account_non_locked, created_at, updated_at, version) "
+      + "VALUES (?, ?, ?, ?, ?, ?, FALSE, NULL, ?, ?, ?, ?, ?, 0)";
+
+  private static final String UPDATE_COPY_SQL =
+      "UPDATE users SET name = ?, bio = ?, profile_image_url = ?, updated_at = ? WHERE id = ?";
+
+  // Never matches a bcrypt hash, so a copy can't be logged into
+  private static final String NO_PASSWORD = "!";
+
+  private final UserRepository userRepository;
+  private final ShardMap shardMap;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate copyTemplate;
+
+  public UserShardReplicator(UserRepository userRepository, ShardMap shardMap, JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager) {
+    this.userRepository = userRepository;
+    this.shardMap = shardMap;
+    this.jdbcTemplate = jdbcTemplate;
+    this.copyTemplate = new TransactionTemplate(transactionManager);
+    copyTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Makes sure the user exists on the shard the current transaction is
+   * bound to. Call it after binding the shard and before loading the user.
+   */
+  public void ensureOnCurrentShard(Long userId) {
+    String shard = ShardContext.current();
+    if (shard == null || shard.equals(shardMap.homeShard())) {
+      return;
+    }
+
+    Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, userId);
+    if (present != null && present > 0) {
+      return;
+    }
+
+    User user = shardMap.readFromShard(shardMap.homeShard(), () -> userRepository.findById(userId))
+        .orElseThrow(() -> new RuntimeException("User not found"));
+    jdbcTemplate.update(INSERT_COPY_SQL,
+        user.getId(),
+        user.getEmail(),
+        NO_PASSWORD,
+        user.getName(),
+        user.getBio(),
+        user.getProfileImageUrl(),
+        user.getRole().name(),
+        user.getEnabled(),
+        user.getAccountNonLocked(),
+        Timestamp.valueOf(user.getCreatedAt()),
+        Timestamp.valueOf(user.getUpdatedAt()));
+    log.info("Copied user {} to shard {}", userId, shard);
+  }
+
+  /**
+   * Pushes the user's profile to their copies once the current transaction
+   * commits. Shards without a copy are left alone.
+   */
+  public void propagateProfile(User user) {
+    if (!shardMap.isEnabled()) {
+      return;
+    }
+
+    Runnable propagate = () -> {
+      LocalDateTime now = LocalDateTime.now();
+      for (String shard : shardMap.allShards()) {
+        if (shard == null || shard.equals(shardMap.homeShard())) {
+          continue;
+        }
+        try {
+          ShardContext.run(shard, () -> copyTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+              UPDATE_COPY_SQL, user.getName(), user.getBio(), user.getProfileImageUrl(), Timestamp.valueOf(now),
+              user.getId())));
+        } catch (Exception e) {
+          log.warn("Could not update the copy of user {} on shard {}: {}", user.getId(), shard, e.getMessage());
+        }
+      }
+    };
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          propagate.run();
+        }
+      });
+    } else {
+      propagate.run();
+    }
+  }
+
+}
@@ -2,8 +2,12 @@ package com.circlo.chat.repository;
 
 import com.circlo.chat.entity.ChatGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,8 @@ public interface ChatGroupRepository extends JpaRepository<ChatGroup, Long> {
 
   boolean existsByActivityId(Long activityId);
 
+  @Modifying
+  @Query("DELETE FROM ChatGroup g WHERE g.activity.id IN :activityIds")
+  int deleteByActivityIdIn(@Param("activityIds") Collection<Long> activityIds);
+
 }
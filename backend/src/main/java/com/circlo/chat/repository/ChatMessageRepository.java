@@ -3,9 +3,12 @@ package com.circlo.chat.repository;
 import com.circlo.chat.entity.ChatMessage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,6 +20,13 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
   @Query("SELECT m FROM ChatMessage m WHERE m.group.id = :groupId ORDER BY m.createdAt ASC")
   List<ChatMessage> findAllMessagesByGroupId(Long groupId);
 
-  void deleteByGroupId(Long groupId);
+  @Modifying
+  @Query("DELETE FROM ChatMessage m WHERE m.group.id = :groupId")
+  int deleteByGroupId(@Param("groupId") Long groupId);
+
+  @Modifying
+  @Query("DELETE FROM ChatMessage m WHERE m.group.id IN " +
+      "(SELECT g.id FROM ChatGroup g WHERE g.activity.id IN :activityIds)")
+  int deleteByActivityIdIn(@Param("activityIds") Collection<Long> activityIds);
 
 }
@@ -3,9 +3,11 @@ package com.circlo.chat.scheduler;
 import com.circlo.activity.entity.Activity;
 import com.circlo.activity.entity.ActivityStatus;
 import com.circlo.activity.repository.ActivityRepository;
-import com.circlo.chat.service.ChatService;
+import com.circlo.activity.service.ActivityExpiryService;
+import com.circlo.common.datasource.ShardMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -18,38 +20,64 @@ import java.util.List;
 public class ChatCleanupScheduler {
 
   private final ActivityRepository activityRepository;
-  private final ChatService chatService;
+  private final ActivityExpiryService activityExpiryService;
+  private final ShardMap shardMap;
 
-  // Run every hour
+  @Value("${app.activity.expiry.batch-size:50}")
+  private int batchSize;
+
+  @Value("${app.activity.expiry.bulk-enabled:true}")
+  private boolean bulkEnabled;
+
+  // Run every hour as a safety net; ActivityExpiryWheel normally expires activities on time
   @Scheduled(cron = "0 0 * * * *")
   public void cleanupExpiredActivityChats() {
     log.info("Starting cleanup of expired activity chats");
+    long startTime = System.currentTimeMillis();
 
-    try {
-      // Find all open activities that have passed their scheduled date
-      List<Activity> expiredActivities = activityRepository.findExpiredActivities(
-          ActivityStatus.OPEN, LocalDateTime.now());
-
-      log.info("Found {} expired activities to process", expiredActivities.size());
-
-      for (Activity activity : expiredActivities) {
-        try {
-          // Close the activity
-          activity.setStatus(ActivityStatus.CLOSED);
-          activity.setClosedAt(LocalDateTime.now());
-          activityRepository.save(activity);
-
-          // Delete the chat group
-          chatService.deleteGroupByActivityId(activity.getId());
-          log.info("Cleaned up chat for expired activity: {}", activity.getId());
-        } catch (Exception e) {
-          log.error("Error cleaning up activity {}: {}", activity.getId(), e.getMessage());
-        }
+    if (bulkEnabled) {
+      try {
+        int[] processed = { 0 };
+        shardMap.forEachShard(() -> processed[0] += activityExpiryService.expireOverdueInBulk());
+        logThroughput("bulk", processed[0], startTime);
+      } catch (Exception e) {
+        log.error("Error during bulk chat cleanup: {}", e.getMessage(), e);
       }
+      return;
+    }
 
-      log.info("Completed cleanup of expired activity chats");
+    try {
+      int[] processed = { 0 };
+      shardMap.forEachShard(() -> processed[0] += cleanupPerEntity());
+      logThroughput("per-entity", processed[0], startTime);
     } catch (Exception e) {
       log.error("Error during chat cleanup: {}", e.getMessage(), e);
     }
   }
+
+  private int cleanupPerEntity() {
+    // Find all open activities that have passed their scheduled date
+    List<Long> expiredIds = activityRepository.findExpiredActivities(
+        ActivityStatus.OPEN, LocalDateTime.now()).stream()
+        .map(Activity::getId)
+        .toList();
+
+    log.info("Found {} expired activities to process", expiredIds.size());
+
+    for (int from = 0; from < expiredIds.size(); from += batchSize) {
+      List<Long> batch = expiredIds.subList(from, Math.min(from + batchSize, expiredIds.size()));
+      try {
+        activityExpiryService.expireActivities(batch);
+      } catch (Exception e) {
+        log.error("Error cleaning up activities {}: {}", batch, e.getMessage());
+      }
+    }
+    return expiredIds.size();
+  }
+
+  private void logThroughput(String mode, int rows, long startTime) {
+    long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+    log.info("Completed {} cleanup of expired activity chats: {} activities in {} ms ({} rows/s)",
+        mode, rows, elapsed, rows * 1000L / elapsed);
+  }
 }
@@ -1,9 +1,12 @@
 package com.circlo.chat.service;
 
 import com.circlo.activity.entity.Activity;
+import com.circlo.activity.event.ActivityEngagementEvent;
+import com.circlo.activity.event.EngagementKind;
 import com.circlo.activity.repository.ActivityRepository;
 import com.circlo.auth.entity.User;
 import com.circlo.auth.repository.UserRepository;
+import com.circlo.auth.service.UserShardReplicator;
 import com.circlo.chat.dto.ChatGroupDTO;
 import com.circlo.chat.dto.ChatMessageDTO;
 import com.circlo.chat.dto.SendMessageRequest;
@@ -12,21 +15,27 @@ import com.circlo.chat.entity.ChatMessage;
 import com.circlo.chat.entity.MessageType;
 import com.circlo.chat.repository.ChatGroupRepository;
 import com.circlo.chat.repository.ChatMessageRepository;
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
 import com.circlo.joinrequest.entity.JoinRequestStatus;
 import com.circlo.joinrequest.repository.JoinRequestRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ChatService {
 
@@ -36,10 +45,33 @@ public class ChatService {
   private final UserRepository userRepository;
   private final JoinRequestRepository joinRequestRepository;
   private final SimpMessagingTemplate messagingTemplate;
+  private final ShardMap shardMap;
+  private final UserShardReplicator userShardReplicator;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate createGroupTemplate;
+
+  public ChatService(ChatGroupRepository chatGroupRepository, ChatMessageRepository chatMessageRepository,
+      ActivityRepository activityRepository, UserRepository userRepository,
+      JoinRequestRepository joinRequestRepository, SimpMessagingTemplate messagingTemplate, ShardMap shardMap,
+      UserShardReplicator userShardReplicator, ApplicationEventPublisher eventPublisher,
+      PlatformTransactionManager transactionManager) {
+    this.chatGroupRepository = chatGroupRepository;
+    this.chatMessageRepository = chatMessageRepository;
+    this.activityRepository = activityRepository;
+    this.userRepository = userRepository;
+    this.joinRequestRepository = joinRequestRepository;
+    this.messagingTemplate = messagingTemplate;
+    this.shardMap = shardMap;
+    this.userShardReplicator = userShardReplicator;
+    this.eventPublisher = eventPublisher;
+    this.createGroupTemplate = new TransactionTemplate(transactionManager);
+    createGroupTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
 
   @Transactional
   public ChatGroup createGroupForActivity(Long activityId) {
     log.info("Creating chat group for activity: {}", activityId);
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
 
     if (chatGroupRepository.existsByActivityId(activityId)) {
       throw new RuntimeException("Chat group already exists for this activity");
@@ -60,9 +92,31 @@ public class ChatService {
     return group;
   }
 
+  /**
+   * Idempotent variant of {@link #createGroupForActivity}: returns false
+   * instead of failing when the group already exists, including when it
+   * was created concurrently (caught by the unique activity_id). The insert
+   * runs in its own REQUIRES_NEW transaction, since a call from inside this
+   * class skips the @Transactional proxy, so a losing insert rolls back
+   * alone instead of poisoning a surrounding transaction.
+   */
+  public boolean ensureGroupForActivity(Long activityId) {
+    if (chatGroupRepository.existsByActivityId(activityId)) {
+      return false;
+    }
+    try {
+      createGroupTemplate.execute(status -> createGroupForActivity(activityId));
+      return true;
+    } catch (DataIntegrityViolationException e) {
+      return false;
+    }
+  }
+
   @Transactional
   public ChatMessageDTO sendMessage(Long groupId, Long userId, SendMessageRequest request) {
     log.info("User {} sending message to group {}", userId, groupId);
+    ShardContext.bindToTransaction(shardMap.shardForId(groupId));
+    userShardReplicator.ensureOnCurrentShard(userId);
 
     ChatGroup group = chatGroupRepository.findById(groupId)
         .orElseThrow(() -> new RuntimeException("Chat group not found"));
@@ -84,6 +138,7 @@ public class ChatService {
 
     message = chatMessageRepository.save(message);
     log.info("Message sent: {}", message.getId());
+    eventPublisher.publishEvent(ActivityEngagementEvent.of(group.getActivity(), EngagementKind.CHAT_MESSAGE));
 
     ChatMessageDTO messageDTO = convertToDTO(message);
 
@@ -93,7 +148,9 @@ public class ChatService {
     return messageDTO;
   }
 
+  @Transactional(readOnly = true)
   public List<ChatMessageDTO> getGroupMessages(Long groupId, Long userId, Integer limit) {
+    ShardContext.bindToTransaction(shardMap.shardForId(groupId));
     ChatGroup group = chatGroupRepository.findById(groupId)
         .orElseThrow(() -> new RuntimeException("Chat group not found"));
 
@@ -118,7 +175,9 @@ public class ChatService {
         .collect(Collectors.toList());
   }
 
+  @Transactional
   public ChatGroupDTO getGroupByActivityId(Long activityId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     ChatGroup group = chatGroupRepository.findByActivityId(activityId)
         .orElseGet(() -> createGroupForActivity(activityId));
     return convertGroupToDTO(group);
@@ -127,6 +186,7 @@ public class ChatService {
   @Transactional
   public void deleteGroupByActivityId(Long activityId) {
     log.info("Deleting chat group for activity: {}", activityId);
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
 
     chatGroupRepository.findByActivityId(activityId).ifPresent(group -> {
       // Delete all messages in the group first
@@ -139,6 +199,23 @@ public class ChatService {
     });
   }
 
+  /**
+   * Set-based variant of {@link #deleteGroupByActivityId} for many
+   * activities: two bulk deletes regardless of how many groups or messages
+   * there are. Returns the number of groups deleted.
+   */
+  @Transactional
+  public int deleteGroupsByActivityIds(Collection<Long> activityIds) {
+    if (activityIds.isEmpty()) {
+      return 0;
+    }
+
+    int messages = chatMessageRepository.deleteByActivityIdIn(activityIds);
+    int groups = chatGroupRepository.deleteByActivityIdIn(activityIds);
+    log.info("Deleted {} chat groups and {} messages for {} activities", groups, messages, activityIds.size());
+    return groups;
+  }
+
   private boolean isUserMemberOfGroup(Long userId, Long activityId) {
     // Check if user is the owner
     Activity activity = activityRepository.findById(activityId)
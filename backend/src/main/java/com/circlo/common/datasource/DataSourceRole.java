@@ -0,0 +1,6 @@
+package com.circlo.common.datasource;
+
+public enum DataSourceRole {
+  PRIMARY,
+  REPLICA
+}
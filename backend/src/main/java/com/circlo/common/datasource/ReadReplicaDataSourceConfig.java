@@ -0,0 +1,80 @@
+package com.circlo.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with a primary and a replica pool
+ * behind {@link ReadReplicaRoutingDataSource}. Only active when
+ * app.datasource.replica.enabled is true and sharding is off; otherwise
+ * Spring Boot's single pool is used unchanged.
+ */
+@Configuration
+// Not combined with region sharding yet, which replaces the DataSource itself
+@ConditionalOnExpression("${app.datasource.replica.enabled:false} and !${app.sharding.enabled:false}")
+public class ReadReplicaDataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    dataSource.setPoolName("circlo-primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("app.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(DataSourceProperties properties,
+      @Value("${app.datasource.replica.url}") String url,
+      @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+      @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .driverClassName(properties.determineDriverClassName())
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("circlo-replica");
+    dataSource.setReadOnly(true);
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaLagGuard replicaLagGuard(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+      MeterRegistry meterRegistry,
+      @Value("${app.datasource.replica.max-lag-millis:2000}") long maxLagMillis,
+      @Value("${app.datasource.replica.read-your-writes-millis:5000}") long readYourWritesMillis) {
+    return new ReplicaLagGuard(replicaDataSource, meterRegistry, maxLagMillis, readYourWritesMillis);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource,
+      ReplicaLagGuard replicaLagGuard) {
+    ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(replicaLagGuard);
+    routing.setTargetDataSources(Map.of(
+        DataSourceRole.PRIMARY, primaryDataSource,
+        DataSourceRole.REPLICA, replicaDataSource));
+    routing.setDefaultTargetDataSource(primaryDataSource);
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+}
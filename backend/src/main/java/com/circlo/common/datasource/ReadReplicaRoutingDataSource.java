@@ -0,0 +1,41 @@
+package com.circlo.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the
+ * replica when {@link ReplicaLagGuard} allows it, and everything else to the
+ * primary. Must sit behind a LazyConnectionDataSourceProxy so the lookup
+ * happens after the transaction's read-only flag is set.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private final ReplicaLagGuard replicaLagGuard;
+
+  public ReadReplicaRoutingDataSource(ReplicaLagGuard replicaLagGuard) {
+    this.replicaLagGuard = replicaLagGuard;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return DataSourceRole.PRIMARY;
+    }
+
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return replicaLagGuard.canUseReplica() ? DataSourceRole.REPLICA : DataSourceRole.PRIMARY;
+    }
+
+    // Remember the writer so their next reads stay on the primary until the replica catches up
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        replicaLagGuard.recordWrite();
+      }
+    });
+    return DataSourceRole.PRIMARY;
+  }
+
+}
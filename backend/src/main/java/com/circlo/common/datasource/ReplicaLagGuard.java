@@ -0,0 +1,109 @@
+package com.circlo.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a read-only transaction may use the replica. The replica
+ * is skipped while its measured lag is above the limit or unknown, and for
+ * a short window after the current user committed a write, so they always
+ * read their own writes.
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+  private final JdbcTemplate replicaJdbcTemplate;
+  private final long maxLagMillis;
+  private final long readYourWritesMillis;
+
+  private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+  private volatile long lagMillis = -1;
+
+  public ReplicaLagGuard(DataSource replicaDataSource, MeterRegistry meterRegistry,
+      long maxLagMillis, long readYourWritesMillis) {
+    this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+    this.maxLagMillis = maxLagMillis;
+    this.readYourWritesMillis = readYourWritesMillis;
+
+    Gauge.builder("circlo.datasource.replica.lag", this, guard -> guard.lagMillis)
+        .description("Last measured replica lag in milliseconds, -1 if unavailable")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  public boolean canUseReplica() {
+    long lag = lagMillis;
+    if (lag < 0 || lag > maxLagMillis) {
+      return false;
+    }
+
+    String user = currentUser();
+    if (user == null) {
+      return true;
+    }
+    Long lastWrite = lastWriteByUser.get(user);
+    return lastWrite == null || System.currentTimeMillis() - lastWrite > Math.max(readYourWritesMillis, lag);
+  }
+
+  public void recordWrite() {
+    String user = currentUser();
+    if (user != null) {
+      lastWriteByUser.put(user, System.currentTimeMillis());
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-millis:1000}")
+  public void checkLag() {
+    try {
+      List<Map<String, Object>> status = replicaJdbcTemplate.queryForList("SHOW REPLICA STATUS");
+      Object seconds = status.isEmpty() ? null : status.get(0).get("Seconds_Behind_Source");
+      if (status.isEmpty()) {
+        // Not a MySQL replica (e.g. a standalone test instance), nothing to lag behind
+        lagMillis = 0;
+      } else if (seconds == null) {
+        // Replication is stopped or broken
+        lagMillis = -1;
+      } else {
+        lagMillis = ((Number) seconds).longValue() * 1000;
+      }
+    } catch (BadSqlGrammarException e) {
+      // Too old for SHOW REPLICA STATUS, or not MySQL: its lag can't be known
+      if (lagMillis >= 0) {
+        log.warn("Cannot read replica status, routing reads to the primary: {}", e.getMessage());
+      }
+      lagMillis = -1;
+    } catch (DataAccessException e) {
+      if (lagMillis >= 0) {
+        log.warn("Replica unavailable, routing reads to the primary: {}", e.getMessage());
+      }
+      lagMillis = -1;
+    }
+
+    long cutoff = System.currentTimeMillis() - Math.max(readYourWritesMillis, maxLagMillis);
+    lastWriteByUser.values().removeIf(lastWrite -> lastWrite < cutoff);
+  }
+
+  private String currentUser() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated()
+        || authentication instanceof AnonymousAuthenticationToken) {
+      return null;
+    }
+    return authentication.getName();
+  }
+
+}
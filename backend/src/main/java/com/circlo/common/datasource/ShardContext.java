@@ -0,0 +1,70 @@
+package com.circlo.common.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's next connection should come from. Read
+ * by {@link ShardRoutingDataSource} when a connection is first used, so it
+ * can be set at the top of a transactional method.
+ */
+public final class ShardContext {
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private ShardContext() {
+    // Utility class
+  }
+
+  public static String current() {
+    return CURRENT.get();
+  }
+
+  public static <T> T call(String shard, Supplier<T> action) {
+    String previous = CURRENT.get();
+    set(shard);
+    try {
+      return action.get();
+    } finally {
+      set(previous);
+    }
+  }
+
+  public static void run(String shard, Runnable action) {
+    call(shard, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Routes the rest of the current transaction to the shard and restores
+   * the previous shard once it completes. Outside a transaction this is a
+   * no-op; use {@link #call} instead.
+   */
+  public static void bindToTransaction(String shard) {
+    if (shard == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+
+    String previous = CURRENT.get();
+    set(shard);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        set(previous);
+      }
+    });
+  }
+
+  private static void set(String shard) {
+    if (shard != null) {
+      CURRENT.set(shard);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+}
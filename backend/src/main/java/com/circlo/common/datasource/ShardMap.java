@@ -0,0 +1,166 @@
+package com.circlo.common.datasource;
+
+import com.circlo.location.util.GeoHash;
+import com.circlo.location.util.GeoUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Maps locations and ids to region shards. A location belongs to the shard
+ * of the longest configured geohash prefix it matches. Each shard hands out
+ * ids congruent to its index + 1 modulo the shard count, so an id alone
+ * identifies its shard. With sharding disabled every method resolves to
+ * null, which routes to the single configured database.
+ */
+@Component
+public class ShardMap {
+
+  // Above this many region cells a search just fans out to every shard
+  private static final int MAX_COVERING_CELLS = 64;
+
+  private final ShardingProperties properties;
+  private final TransactionTemplate shardReadTemplate;
+
+  public ShardMap(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+    this.properties = properties;
+    this.shardReadTemplate = new TransactionTemplate(transactionManager);
+    shardReadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    shardReadTemplate.setReadOnly(true);
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  public String shardFor(double latitude, double longitude) {
+    if (!isEnabled()) {
+      return null;
+    }
+
+    return shardForGeohash(GeoHash.encode(latitude, longitude, maxPrefixLength()));
+  }
+
+  /**
+   * Every shard a radius search around the point can touch, so searches
+   * near a region boundary include the neighbouring shard.
+   */
+  public Collection<String> shardsFor(double latitude, double longitude, double radiusKm) {
+    if (!isEnabled()) {
+      return Collections.singletonList(null);
+    }
+
+    double latDelta = GeoUtils.latDeltaDegrees(radiusKm);
+    double lonDelta = GeoUtils.lonDeltaDegrees(latitude, radiusKm);
+    return shardsWithin(latitude - latDelta, longitude - lonDelta, latitude + latDelta, longitude + lonDelta);
+  }
+
+  /**
+   * Every shard the bounding box overlaps. A minLon greater than maxLon
+   * describes a box crossing the antimeridian.
+   */
+  public Collection<String> shardsWithin(double minLat, double minLon, double maxLat, double maxLon) {
+    if (!isEnabled()) {
+      return Collections.singletonList(null);
+    }
+
+    Set<String> cells = GeoHash.covering(minLat, minLon, maxLat, minLon > maxLon ? maxLon + 360.0 : maxLon,
+        maxPrefixLength(), MAX_COVERING_CELLS);
+    if (cells == null) {
+      return allShards();
+    }
+
+    Set<String> shards = new LinkedHashSet<>();
+    for (String cell : cells) {
+      shards.add(shardForGeohash(cell));
+    }
+    return shards;
+  }
+
+  /**
+   * The shard that owns users and refresh tokens, or null when sharding is
+   * disabled. Other shards only hold copies of the users their rows
+   * reference, see UserShardReplicator.
+   */
+  public String homeShard() {
+    return isEnabled() ? properties.getDefaultShard() : null;
+  }
+
+  public String shardForId(long id) {
+    if (!isEnabled()) {
+      return null;
+    }
+
+    int index = (int) Math.floorMod(id - 1, (long) properties.getShards().size());
+    return properties.getShards().entrySet().stream()
+        .filter(entry -> entry.getValue().getIndex() == index)
+        .map(Map.Entry::getKey)
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException("No shard with index " + index));
+  }
+
+  /**
+   * Every shard in index order, or a single null entry when sharding is
+   * disabled.
+   */
+  public List<String> allShards() {
+    if (!isEnabled()) {
+      return Collections.singletonList(null);
+    }
+
+    List<String> shards = new ArrayList<>(properties.getShards().keySet());
+    shards.sort(Comparator.comparingInt(shard -> properties.getShards().get(shard).getIndex()));
+    return shards;
+  }
+
+  public <T> T withShard(String shard, Supplier<T> action) {
+    return shard != null ? ShardContext.call(shard, action) : action.get();
+  }
+
+  /**
+   * Runs a read on the shard in a transaction of its own, so it gets a
+   * connection to that shard even when the caller's transaction is already
+   * bound to another one.
+   */
+  public <T> T readFromShard(String shard, Supplier<T> action) {
+    if (shard == null) {
+      return action.get();
+    }
+    return ShardContext.call(shard, () -> shardReadTemplate.execute(status -> action.get()));
+  }
+
+  public void forEachShard(Runnable action) {
+    for (String shard : allShards()) {
+      withShard(shard, () -> {
+        action.run();
+        return null;
+      });
+    }
+  }
+
+  private String shardForGeohash(String geohash) {
+    for (int length = geohash.length(); length > 0; length--) {
+      String shard = properties.getRegions().get(geohash.substring(0, length));
+      if (shard != null) {
+        return shard;
+      }
+    }
+    return properties.getDefaultShard();
+  }
+
+  private int maxPrefixLength() {
+    return properties.getRegions().keySet().stream().mapToInt(String::length).max().orElse(1);
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.circlo.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections from the shard in {@link ShardContext}, or from the
+ * default shard when none is set. Must sit behind a
+ * LazyConnectionDataSourceProxy so a transaction can pick its shard after
+ * it has begun.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return ShardContext.current();
+  }
+
+}
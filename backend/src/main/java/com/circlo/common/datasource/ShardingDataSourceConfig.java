@@ -0,0 +1,59 @@
+package com.circlo.common.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One pool per region shard behind {@link ShardRoutingDataSource}. Only
+ * active when app.sharding.enabled is true. Every connection sets the
+ * session's auto-increment step to the shard count and its offset to the
+ * shard's index + 1, which keeps ids unique across shards and lets
+ * {@link ShardMap#shardForId} find a row's shard from its id.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding", name = "enabled", havingValue = "true")
+public class ShardingDataSourceConfig {
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ShardingProperties properties, DataSourceProperties dataSourceProperties) {
+    int shardCount = properties.getShards().size();
+    Map<Object, Object> targets = new HashMap<>();
+
+    properties.getShards().forEach((name, shard) -> {
+      HikariDataSource dataSource = DataSourceBuilder.create()
+          .type(HikariDataSource.class)
+          .driverClassName(dataSourceProperties.determineDriverClassName())
+          .url(shard.getUrl())
+          .username(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.getUsername())
+          .password(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.getPassword())
+          .build();
+      dataSource.setPoolName("circlo-shard-" + name);
+      dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+      dataSource.setConnectionInitSql("SET SESSION auto_increment_increment = " + shardCount
+          + ", auto_increment_offset = " + (shard.getIndex() + 1));
+      targets.put(name, dataSource);
+    });
+
+    if (!targets.containsKey(properties.getDefaultShard())) {
+      throw new IllegalStateException("app.sharding.default-shard must name one of app.sharding.shards");
+    }
+
+    ShardRoutingDataSource routing = new ShardRoutingDataSource();
+    routing.setTargetDataSources(targets);
+    routing.setDefaultTargetDataSource(targets.get(properties.getDefaultShard()));
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+}
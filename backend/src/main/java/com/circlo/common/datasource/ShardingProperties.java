@@ -0,0 +1,37 @@
+package com.circlo.common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+
+  private boolean enabled = false;
+
+  // Shard for locations whose geohash matches no region prefix
+  private String defaultShard;
+
+  // Geohash prefix -> shard name; the longest matching prefix wins
+  private Map<String, String> regions = new LinkedHashMap<>();
+
+  private Map<String, Shard> shards = new LinkedHashMap<>();
+
+  @Data
+  public static class Shard {
+
+    // Position of the shard, 0..n-1. Ids generated on it are index + 1 modulo n.
+    private int index;
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+
+  }
+
+}
@@ -2,9 +2,15 @@ package com.circlo.joinrequest.service;
 
 import com.circlo.activity.entity.Activity;
 import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.event.ActivityEngagementEvent;
+import com.circlo.activity.event.EngagementKind;
 import com.circlo.activity.repository.ActivityRepository;
 import com.circlo.auth.entity.User;
 import com.circlo.auth.repository.UserRepository;
+import com.circlo.auth.service.UserShardReplicator;
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
 // import com.circlo.event.config.KafkaTopics;
 // import com.circlo.event.dto.JoinAcceptedEvent;
 // import com.circlo.event.dto.JoinRejectedEvent;
@@ -19,6 +25,7 @@ import com.circlo.notification.entity.NotificationType;
 import com.circlo.notification.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 // import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,11 +43,16 @@ public class JoinRequestService {
   private final ActivityRepository activityRepository;
   private final UserRepository userRepository;
   private final NotificationService notificationService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ShardMap shardMap;
+  private final UserShardReplicator userShardReplicator;
   // private final KafkaTemplate<String, Object> kafkaTemplate;
 
   @Transactional
   public JoinRequestDTO createJoinRequest(Long userId, CreateJoinRequestDTO request) {
     log.info("Creating join request for activity {} by user {}", request.getActivityId(), userId);
+    ShardContext.bindToTransaction(shardMap.shardForId(request.getActivityId()));
+    userShardReplicator.ensureOnCurrentShard(userId);
 
     Activity activity = activityRepository.findById(request.getActivityId())
         .orElseThrow(() -> new RuntimeException("Activity not found"));
@@ -80,6 +92,7 @@ public class JoinRequestService {
 
     joinRequest = joinRequestRepository.save(joinRequest);
     log.info("Join request created: {}", joinRequest.getId());
+    eventPublisher.publishEvent(ActivityEngagementEvent.of(activity, EngagementKind.JOIN_REQUESTED));
 
     // Create notification for activity owner
     notificationService.createNotification(
@@ -97,6 +110,7 @@ public class JoinRequestService {
 
   @Transactional
   public JoinRequestDTO acceptJoinRequest(Long requestId, Long ownerId, ReviewJoinRequestDTO review) {
+    ShardContext.bindToTransaction(shardMap.shardForId(requestId));
     log.info("Accepting join request {} by owner {}", requestId, ownerId);
 
     JoinRequest joinRequest = joinRequestRepository.findById(requestId)
@@ -128,6 +142,8 @@ public class JoinRequestService {
       activity.setStatus(ActivityStatus.FULL);
     }
     activityRepository.save(activity);
+    eventPublisher.publishEvent(ActivityChangedEvent.of(activity));
+    eventPublisher.publishEvent(ActivityEngagementEvent.of(activity, EngagementKind.JOIN_ACCEPTED));
 
     log.info("Join request accepted: {}", requestId);
 
@@ -147,6 +163,7 @@ public class JoinRequestService {
 
   @Transactional
   public JoinRequestDTO rejectJoinRequest(Long requestId, Long ownerId, ReviewJoinRequestDTO review) {
+    ShardContext.bindToTransaction(shardMap.shardForId(requestId));
     log.info("Rejecting join request {} by owner {}", requestId, ownerId);
 
     JoinRequest joinRequest = joinRequestRepository.findById(requestId)
@@ -181,7 +198,9 @@ public class JoinRequestService {
     return convertToDTO(joinRequest);
   }
 
+  @Transactional(readOnly = true)
   public List<JoinRequestDTO> getActivityJoinRequests(Long activityId, Long ownerId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     Activity activity = activityRepository.findById(activityId)
         .orElseThrow(() -> new RuntimeException("Activity not found"));
 
@@ -197,15 +216,20 @@ public class JoinRequestService {
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
   public List<JoinRequestDTO> getMyJoinRequests(Long userId) {
-    List<JoinRequest> requests = joinRequestRepository.findByUserId(userId);
-
-    return requests.stream()
-        .map(this::convertToDTO)
+    // Join requests live with their activity, which can be in any region
+    return shardMap.allShards().stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () ->
+            joinRequestRepository.findByUserId(userId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList())).stream())
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
   public List<JoinRequestDTO> getAcceptedMembers(Long activityId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(activityId));
     List<JoinRequest> requests = joinRequestRepository.findByActivityIdAndStatus(
         activityId, JoinRequestStatus.ACCEPTED);
 
@@ -0,0 +1,140 @@
+package com.circlo.location.cache;
+
+import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.circlo.location.service.NearbyResults;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Short-lived Redis cache of nearby responses keyed by a quantized
+ * (lat, lon, radius, type). Every activity change bumps a shared generation
+ * number that is part of the key, so entries never outlive the data they
+ * were built from; the TTL only bounds how long unused entries linger.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NearbyResponseCache {
+
+  private static final String KEY_PREFIX = "nearby:";
+  private static final String GENERATION_KEY = KEY_PREFIX + "generation";
+  private static final TypeReference<List<ActivityDTO>> DTO_LIST = new TypeReference<>() {
+  };
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final ActivitySideEffectPipeline activitySideEffectPipeline;
+
+  @Value("${app.location.cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.cache.quantization-degrees:0.001}")
+  private double quantizationDegrees;
+
+  @Value("${app.location.cache-duration-minutes}")
+  private long cacheDurationMinutes;
+
+  public Lookup get(double latitude, double longitude, double radiusKm, String type) {
+    if (!enabled) {
+      return Lookup.UNCACHEABLE;
+    }
+
+    String generation = null;
+    try {
+      generation = currentGeneration();
+      String json = redisTemplate.opsForValue().get(key(generation, latitude, longitude, radiusKm, type));
+      if (json == null) {
+        return new Lookup(null, generation);
+      }
+
+      // Computed for the cell's first caller; the caller re-measures it with NearbyResults
+      return new Lookup(objectMapper.readValue(json, DTO_LIST), generation);
+    } catch (Exception e) {
+      log.warn("Nearby cache read failed: {}", e.getMessage());
+      return new Lookup(null, generation);
+    }
+  }
+
+  /**
+   * How far a cached result's radius has to be widened so it covers every
+   * caller that maps to the same key.
+   */
+  public double paddingKm() {
+    return enabled ? NearbyResults.paddingKm(quantizationDegrees) : 0.0;
+  }
+
+  /**
+   * Stores a result computed after a miss under the generation that lookup
+   * read, not the current one: a change committed while it was being
+   * computed has bumped the generation, so the possibly stale result lands
+   * under a key nobody reads any more.
+   */
+  public void put(Lookup lookup, double latitude, double longitude, double radiusKm, String type,
+      List<ActivityDTO> activities) {
+    if (!enabled || lookup.generation() == null) {
+      return;
+    }
+
+    try {
+      redisTemplate.opsForValue().set(
+          key(lookup.generation(), latitude, longitude, radiusKm, type),
+          objectMapper.writeValueAsString(activities),
+          Duration.ofMinutes(cacheDurationMinutes));
+    } catch (Exception e) {
+      log.warn("Nearby cache write failed: {}", e.getMessage());
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled || event.isRemote()) {
+      return;
+    }
+
+    // A retried INCR only skips a generation, which is harmless
+    activitySideEffectPipeline.submit("nearby-cache", event.getActivityId(),
+        () -> redisTemplate.opsForValue().increment(GENERATION_KEY));
+  }
+
+  private String currentGeneration() {
+    String generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+    return generation != null ? generation : "0";
+  }
+
+  private String key(String generation, double latitude, double longitude, double radiusKm, String type) {
+    return KEY_PREFIX + generation + ":"
+        + Math.round(latitude / quantizationDegrees) + ":"
+        + Math.round(longitude / quantizationDegrees) + ":"
+        + radiusKm + ":"
+        + (type != null && !type.isEmpty() ? type.toUpperCase(Locale.ROOT) : "ALL");
+  }
+
+  /**
+   * The outcome of {@link #get}: the cached activities, null on a miss, and
+   * the generation they were looked up under, null when nothing may be
+   * cached.
+   */
+  public record Lookup(List<ActivityDTO> activities, String generation) {
+
+    static final Lookup UNCACHEABLE = new Lookup(null, null);
+
+    public boolean isHit() {
+      return activities != null;
+    }
+
+  }
+
+}
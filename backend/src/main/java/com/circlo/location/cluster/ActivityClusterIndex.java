@@ -0,0 +1,151 @@
+package com.circlo.location.cluster;
+
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.location.dto.ActivityClusterDTO;
+import com.circlo.location.index.ActivityGeoIndex;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.util.TileMath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grid clustering of OPEN activities for map zoom levels below the one where
+ * activities are shown individually. Each map tile is split into a fixed
+ * grid of cells and every non-empty cell becomes one cluster at the centroid
+ * of its activities. Clusters are computed from the geo grid on first
+ * request and cached per (zoom, tile, type) until an activity in that tile
+ * changes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityClusterIndex {
+
+  private final ActivityGeoIndex activityGeoIndex;
+
+  private final Map<TileKey, List<ActivityClusterDTO>> clustersByTile = new ConcurrentHashMap<>();
+  // Bumped on every invalidation so a computation racing with a change is not cached
+  private final AtomicLong generation = new AtomicLong();
+
+  @Value("${app.location.cluster.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.cluster.individual-zoom:16}")
+  private int individualZoom;
+
+  @Value("${app.location.cluster.grid-bits:3}")
+  private int gridBits;
+
+  @Value("${app.location.cluster.cache-max-entries:20000}")
+  private int cacheMaxEntries;
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    // Activities never move, so the tiles to drop are the ones around the event's location
+    generation.incrementAndGet();
+    invalidate(event.getLatitude(), event.getLongitude(), event.getType());
+  }
+
+  /**
+   * Clusters in the given tile columns, rows minY to maxY, at the given
+   * zoom, of one type or of all types when type is null.
+   */
+  public List<ActivityClusterDTO> clusters(int zoom, int[] xs, int minY, int maxY, ActivityType type) {
+    List<ActivityClusterDTO> clusters = new ArrayList<>();
+    for (int x : xs) {
+      for (int y = minY; y <= maxY; y++) {
+        clusters.addAll(tileClusters(new TileKey(zoom, x, y, type)));
+      }
+    }
+    return clusters;
+  }
+
+  public boolean isReady() {
+    return enabled && activityGeoIndex.isReady();
+  }
+
+  public int getIndividualZoom() {
+    return individualZoom;
+  }
+
+  private List<ActivityClusterDTO> tileClusters(TileKey key) {
+    List<ActivityClusterDTO> cached = clustersByTile.get(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    long startGeneration = generation.get();
+    List<ActivityClusterDTO> clusters = computeClusters(key);
+    if (clustersByTile.size() >= cacheMaxEntries) {
+      log.debug("Cluster cache reached {} tiles, clearing", cacheMaxEntries);
+      clustersByTile.clear();
+    }
+    // Invalidation bumps the generation before removing, and the remove waits for this
+    // compute, so a change either fails the re-check here or removes what was stored
+    clustersByTile.compute(key, (k, existing) -> generation.get() == startGeneration ? clusters : existing);
+    return clusters;
+  }
+
+  private List<ActivityClusterDTO> computeClusters(TileKey key) {
+    int zoom = key.zoom();
+    int cellZoom = zoom + gridBits;
+    double west = TileMath.tileWestLongitude(key.x(), zoom);
+    double east = TileMath.tileWestLongitude(key.x() + 1, zoom);
+    double north = TileMath.tileNorthLatitude(key.y(), zoom);
+    double south = TileMath.tileNorthLatitude(key.y() + 1, zoom);
+
+    Map<Long, double[]> sumsByCell = new HashMap<>();
+    for (IndexedActivity activity : activityGeoIndex.findWithin(south, west, north, east, key.type())) {
+      double latitude = activity.getLatitude();
+      double longitude = activity.getLongitude();
+      // Box edges are inclusive, keep only what this tile owns
+      if (TileMath.tileX(longitude, zoom) != key.x() || TileMath.tileY(latitude, zoom) != key.y()) {
+        continue;
+      }
+      long cell = ((long) TileMath.tileX(longitude, cellZoom) << 32) | TileMath.tileY(latitude, cellZoom);
+      double[] sums = sumsByCell.computeIfAbsent(cell, c -> new double[3]);
+      sums[0] += latitude;
+      sums[1] += longitude;
+      sums[2]++;
+    }
+
+    List<ActivityClusterDTO> clusters = new ArrayList<>(sumsByCell.size());
+    for (double[] sums : sumsByCell.values()) {
+      clusters.add(ActivityClusterDTO.builder()
+          .latitude(sums[0] / sums[2])
+          .longitude(sums[1] / sums[2])
+          .count((int) sums[2])
+          .build());
+    }
+    return List.copyOf(clusters);
+  }
+
+  private void invalidate(double latitude, double longitude, ActivityType type) {
+    for (int zoom = 0; zoom < individualZoom; zoom++) {
+      int x = TileMath.tileX(longitude, zoom);
+      int y = TileMath.tileY(latitude, zoom);
+      clustersByTile.remove(new TileKey(zoom, x, y, null));
+      clustersByTile.remove(new TileKey(zoom, x, y, type));
+    }
+  }
+
+  private record TileKey(int zoom, int x, int y, ActivityType type) {
+  }
+
+}
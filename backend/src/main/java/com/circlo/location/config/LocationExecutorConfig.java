@@ -0,0 +1,46 @@
+package com.circlo.location.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class LocationExecutorConfig {
+
+  /**
+   * Boot only auto-configures its application executor when no other
+   * Executor bean exists, so with the pool below (and the STOMP channel
+   * executors) it would be skipped and @Async and async MVC would fall back
+   * to unpooled executors. Defined here the way Boot would, from the
+   * spring.task.execution settings.
+   */
+  @Lazy
+  @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+      AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+  public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return builder.build();
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor nearbyBatchExecutor(
+      @Value("${app.location.batch.pool-size:8}") int poolSize,
+      @Value("${app.location.batch.queue-capacity:200}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("nearby-batch-");
+    // When saturated, the request thread resolves the point itself instead of failing
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+}
@@ -0,0 +1,155 @@
+package com.circlo.location.controller;
+
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.service.ActivityService;
+import com.circlo.location.cluster.ActivityClusterIndex;
+import com.circlo.location.dto.ActivityClustersDTO;
+import com.circlo.location.dto.HeatmapDTO;
+import com.circlo.location.dto.HeatmapTileDTO;
+import com.circlo.location.heatmap.ActivityHeatmap;
+import com.circlo.location.push.ActivityTilePublisher;
+import com.circlo.location.util.TileMath;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/location")
+@RequiredArgsConstructor
+public class LocationController {
+
+  private static final int MAX_TILES = 64;
+  private static final int MAX_HEATMAP_TILES = 1024;
+  private static final int MAX_CLUSTER_TILES = 256;
+
+  private final ActivityTilePublisher activityTilePublisher;
+  private final ActivityHeatmap activityHeatmap;
+  private final ActivityClusterIndex activityClusterIndex;
+  private final ActivityService activityService;
+
+  @Value("${app.location.cluster.max-activities:500}")
+  private int maxClusterActivities;
+
+  /**
+   * Tile ids to subscribe to (as /topic/geo/{tileId}) for live updates in
+   * the given viewport.
+   */
+  @GetMapping("/tiles")
+  public ResponseEntity<List<String>> getViewportTiles(
+      @RequestParam Double minLat,
+      @RequestParam Double minLon,
+      @RequestParam Double maxLat,
+      @RequestParam Double maxLon) {
+    int zoom = activityTilePublisher.getZoom();
+    int[] xs = TileMath.tileXs(minLon, maxLon, zoom);
+    int minY = TileMath.tileY(maxLat, zoom);
+    int maxY = TileMath.tileY(minLat, zoom);
+
+    if ((long) xs.length * (maxY - minY + 1) > MAX_TILES) {
+      throw new RuntimeException("Viewport too large, zoom in to subscribe to live updates");
+    }
+
+    List<String> tiles = new ArrayList<>();
+    for (int x : xs) {
+      for (int y = minY; y <= maxY; y++) {
+        tiles.add(TileMath.quadkey(x, y, zoom));
+      }
+    }
+    return ResponseEntity.ok(tiles);
+  }
+
+  /**
+   * Non-empty tiles in the viewport with their count of OPEN activities,
+   * optionally of one type. Served at the deepest precomputed zoom level
+   * not deeper than the requested one.
+   */
+  @GetMapping("/heatmap")
+  public ResponseEntity<HeatmapDTO> getHeatmap(
+      @RequestParam Double minLat,
+      @RequestParam Double minLon,
+      @RequestParam Double maxLat,
+      @RequestParam Double maxLon,
+      @RequestParam Integer zoom,
+      @RequestParam(required = false) String type) {
+    if (!activityHeatmap.isReady()) {
+      throw new RuntimeException("Heatmap is not available yet");
+    }
+
+    ActivityType activityType = type != null && !type.isEmpty() ? ActivityType.valueOf(type.toUpperCase()) : null;
+    int heatmapZoom = activityHeatmap.resolveZoom(zoom);
+    int[] xs = TileMath.tileXs(minLon, maxLon, heatmapZoom);
+    int minY = TileMath.tileY(maxLat, heatmapZoom);
+    int maxY = TileMath.tileY(minLat, heatmapZoom);
+
+    if ((long) xs.length * (maxY - minY + 1) > MAX_HEATMAP_TILES) {
+      throw new RuntimeException("Viewport too large for this zoom level, request a lower zoom");
+    }
+
+    List<HeatmapTileDTO> tiles = new ArrayList<>();
+    for (int x : xs) {
+      for (int y = minY; y <= maxY; y++) {
+        int count = activityHeatmap.count(heatmapZoom, x, y, activityType);
+        if (count > 0) {
+          tiles.add(HeatmapTileDTO.builder()
+              .tile(TileMath.quadkey(x, y, heatmapZoom))
+              .count(count)
+              .build());
+        }
+      }
+    }
+
+    return ResponseEntity.ok(HeatmapDTO.builder()
+        .zoom(heatmapZoom)
+        .tiles(tiles)
+        .build());
+  }
+
+  /**
+   * Clusters of OPEN activities in the viewport with their centroid and
+   * count. From the individual zoom level up, the activities themselves are
+   * returned instead, nearest to the viewport center first.
+   */
+  @GetMapping("/clusters")
+  public ResponseEntity<ActivityClustersDTO> getClusters(
+      @RequestParam Double minLat,
+      @RequestParam Double minLon,
+      @RequestParam Double maxLat,
+      @RequestParam Double maxLon,
+      @RequestParam Integer zoom,
+      @RequestParam(required = false) String type) {
+    if (!activityClusterIndex.isReady()) {
+      throw new RuntimeException("Clusters are not available yet");
+    }
+
+    ActivityType activityType = type != null && !type.isEmpty() ? ActivityType.valueOf(type.toUpperCase()) : null;
+    if (zoom >= activityClusterIndex.getIndividualZoom()) {
+      return ResponseEntity.ok(ActivityClustersDTO.builder()
+          .zoom(zoom)
+          .activities(activityService.getActivitiesWithin(
+              minLat, minLon, maxLat, maxLon, activityType, maxClusterActivities).getActivities())
+          .build());
+    }
+
+    int clusterZoom = Math.max(0, zoom);
+    int[] xs = TileMath.tileXs(minLon, maxLon, clusterZoom);
+    int minY = TileMath.tileY(maxLat, clusterZoom);
+    int maxY = TileMath.tileY(minLat, clusterZoom);
+
+    if ((long) xs.length * (maxY - minY + 1) > MAX_CLUSTER_TILES) {
+      throw new RuntimeException("Viewport too large for this zoom level, request a lower zoom");
+    }
+
+    return ResponseEntity.ok(ActivityClustersDTO.builder()
+        .zoom(clusterZoom)
+        .clusters(activityClusterIndex.clusters(clusterZoom, xs, minY, maxY, activityType))
+        .build());
+  }
+
+}
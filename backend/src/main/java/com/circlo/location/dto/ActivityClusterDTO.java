@@ -0,0 +1,18 @@
+package com.circlo.location.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityClusterDTO {
+
+  private Double latitude; // centroid of the clustered activities
+  private Double longitude;
+  private Integer count;
+
+}
@@ -0,0 +1,21 @@
+package com.circlo.location.dto;
+
+import com.circlo.activity.dto.ActivityDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityClustersDTO {
+
+  private Integer zoom;
+  private List<ActivityClusterDTO> clusters; // below the individual zoom level
+  private List<ActivityDTO> activities; // at or above the individual zoom level
+
+}
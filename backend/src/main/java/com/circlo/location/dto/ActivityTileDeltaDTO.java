@@ -0,0 +1,27 @@
+package com.circlo.location.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTileDeltaDTO {
+
+  private String action; // UPSERT or REMOVE
+  private Long activityId;
+  private String title;
+  private String type;
+  private String status;
+  private Double latitude;
+  private Double longitude;
+  private Integer currentMembers;
+  private Integer maxMembers;
+  private LocalDateTime scheduledDate;
+
+}
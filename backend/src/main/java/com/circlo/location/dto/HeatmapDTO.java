@@ -0,0 +1,19 @@
+package com.circlo.location.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapDTO {
+
+  private Integer zoom;
+  private List<HeatmapTileDTO> tiles; // only tiles with at least one activity
+
+}
@@ -0,0 +1,17 @@
+package com.circlo.location.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapTileDTO {
+
+  private String tile; // quadkey
+  private Integer count;
+
+}
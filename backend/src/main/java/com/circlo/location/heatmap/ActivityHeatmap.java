@@ -0,0 +1,204 @@
+package com.circlo.location.heatmap;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import com.circlo.location.util.TileMath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Per-tile counts of OPEN activities, by {@link ActivityType}, at a few
+ * fixed zoom levels. Counters move by one as activities open and close, so
+ * a viewport's density costs one lookup per tile however many activities
+ * it contains.
+ */
+@Component
+@Slf4j
+public class ActivityHeatmap {
+
+  private static final int TYPE_COUNT = ActivityType.values().length;
+
+  private final OpenActivityLoader openActivityLoader;
+  private final int[] zooms;
+
+  // One map per zoom level, from packed tile x/y to counts indexed by type ordinal
+  private final Map<Long, AtomicIntegerArray>[] tilesByZoom;
+  // Where each counted activity was counted, so a move or close decrements the right tile
+  private final Map<Long, Placement> placements = new ConcurrentHashMap<>();
+  // Activities closed while the heatmap was loading, so a stale loaded copy doesn't count them again
+  private final Set<Long> closedWhileLoading = new HashSet<>();
+
+  @Value("${app.location.heatmap.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  private volatile boolean ready = false;
+
+  @SuppressWarnings("unchecked")
+  public ActivityHeatmap(OpenActivityLoader openActivityLoader,
+      @Value("${app.location.heatmap.zooms:6,9,12,15}") int[] zooms) {
+    this.openActivityLoader = openActivityLoader;
+    this.zooms = Arrays.stream(zooms).sorted().distinct().toArray();
+    this.tilesByZoom = new Map[this.zooms.length];
+    for (int i = 0; i < this.zooms.length; i++) {
+      tilesByZoom[i] = new ConcurrentHashMap<>();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+
+    log.info("Building activity heatmap from OPEN activities");
+    long startTime = System.currentTimeMillis();
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        placeLoaded(activity);
+      }
+    });
+
+    synchronized (this) {
+      ready = true;
+      closedWhileLoading.clear();
+    }
+    log.info("Activity heatmap built with {} activities in {} ms",
+        placements.size(), System.currentTimeMillis() - startTime);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    if (event.isOpen()) {
+      place(event.getActivityId(), event.getLatitude(), event.getLongitude(), event.getType());
+    } else {
+      close(event.getActivityId());
+    }
+  }
+
+  /**
+   * The configured zoom level to serve a request at: the deepest one not
+   * deeper than requested, or the shallowest if all are deeper.
+   */
+  public int resolveZoom(int requestedZoom) {
+    int resolved = zooms[0];
+    for (int zoom : zooms) {
+      if (zoom <= requestedZoom) {
+        resolved = zoom;
+      }
+    }
+    return resolved;
+  }
+
+  /**
+   * Count of OPEN activities in tile x/y at a configured zoom, of one type
+   * or of all types when type is null.
+   */
+  public int count(int zoom, int x, int y, ActivityType type) {
+    AtomicIntegerArray counts = tilesByZoom[levelOf(zoom)].get(tileKey(x, y));
+    if (counts == null) {
+      return 0;
+    }
+    if (type != null) {
+      return counts.get(type.ordinal());
+    }
+    int total = 0;
+    for (int i = 0; i < TYPE_COUNT; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  private synchronized void place(long activityId, double latitude, double longitude, ActivityType type) {
+    Placement placement = new Placement(latitude, longitude, type);
+    Placement previous = placements.put(activityId, placement);
+    if (placement.equals(previous)) {
+      return;
+    }
+    if (previous != null) {
+      adjust(previous, -1);
+    }
+    adjust(placement, 1);
+  }
+
+  private synchronized void placeLoaded(Activity activity) {
+    if (!closedWhileLoading.contains(activity.getId())) {
+      place(activity.getId(), activity.getLocation().getY(), activity.getLocation().getX(), activity.getType());
+    }
+  }
+
+  private synchronized void close(long activityId) {
+    if (!ready) {
+      closedWhileLoading.add(activityId);
+    }
+    unplace(activityId);
+  }
+
+  private synchronized void unplace(long activityId) {
+    Placement previous = placements.remove(activityId);
+    if (previous != null) {
+      adjust(previous, -1);
+    }
+  }
+
+  private void adjust(Placement placement, int delta) {
+    for (int level = 0; level < zooms.length; level++) {
+      int zoom = zooms[level];
+      long key = tileKey(TileMath.tileX(placement.longitude(), zoom), TileMath.tileY(placement.latitude(), zoom));
+      AtomicIntegerArray counts = tilesByZoom[level].computeIfAbsent(key, k -> new AtomicIntegerArray(TYPE_COUNT));
+      counts.addAndGet(placement.type().ordinal(), delta);
+      if (delta < 0 && isEmpty(counts)) {
+        tilesByZoom[level].remove(key, counts);
+      }
+    }
+  }
+
+  private int levelOf(int zoom) {
+    int level = Arrays.binarySearch(zooms, zoom);
+    if (level < 0) {
+      throw new IllegalArgumentException("Heatmap is not kept at zoom " + zoom);
+    }
+    return level;
+  }
+
+  private static boolean isEmpty(AtomicIntegerArray counts) {
+    for (int i = 0; i < counts.length(); i++) {
+      if (counts.get(i) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long tileKey(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+
+  private record Placement(double latitude, double longitude, ActivityType type) {
+  }
+
+}
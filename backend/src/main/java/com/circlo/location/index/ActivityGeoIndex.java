@@ -0,0 +1,286 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.util.GeoDistanceKernel;
+import com.circlo.location.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/lon grid over every OPEN activity. Each cell holds the
+ * activities whose point falls inside it, so a radius query only has to
+ * visit the cells overlapping the query's bounding box.
+ */
+@Component
+@Slf4j
+public class ActivityGeoIndex {
+
+  private final double cellSizeDegrees;
+  private final long columns;
+
+  private final Map<Long, IndexedActivity> activitiesById = new ConcurrentHashMap<>();
+  private final Map<Long, Map<Long, IndexedActivity>> cells = new ConcurrentHashMap<>();
+
+  private volatile boolean ready = false;
+
+  public ActivityGeoIndex(@Value("${app.location.index.cell-size-degrees:0.02}") double cellSizeDegrees) {
+    this.cellSizeDegrees = cellSizeDegrees;
+    this.columns = (long) Math.ceil(360.0 / cellSizeDegrees);
+  }
+
+  public void upsert(IndexedActivity activity) {
+    if (activity.getStatus() != ActivityStatus.OPEN) {
+      remove(activity.getId());
+      return;
+    }
+
+    long cellKey = cellKey(activity.getLatitude(), activity.getLongitude());
+    activitiesById.compute(activity.getId(), (id, previous) -> {
+      if (previous != null) {
+        long previousKey = cellKey(previous.getLatitude(), previous.getLongitude());
+        if (previousKey != cellKey) {
+          removeFromCell(previousKey, id);
+        }
+      }
+      cells.compute(cellKey, (key, cell) -> {
+        Map<Long, IndexedActivity> target = cell != null ? cell : new ConcurrentHashMap<>();
+        target.put(id, activity);
+        return target;
+      });
+      return activity;
+    });
+  }
+
+  public void remove(long activityId) {
+    activitiesById.computeIfPresent(activityId, (id, previous) -> {
+      removeFromCell(cellKey(previous.getLatitude(), previous.getLongitude()), id);
+      return null;
+    });
+  }
+
+  public IndexedActivity get(long activityId) {
+    return activitiesById.get(activityId);
+  }
+
+  public List<NearbyCandidate> findNearby(double latitude, double longitude, double radiusKm, ActivityType type) {
+    double latDelta = GeoUtils.latDeltaDegrees(radiusKm);
+    double lonDelta = GeoUtils.lonDeltaDegrees(latitude, radiusKm);
+
+    long minRow = row(Math.max(-90.0, latitude - latDelta));
+    long maxRow = row(Math.min(90.0, latitude + latDelta));
+    long minCol = column(longitude - lonDelta);
+    long colSpan = lonDelta >= 180.0 ? columns - 1 : column(longitude + lonDelta) - minCol;
+    if (colSpan < 0) {
+      colSpan += columns;
+    }
+
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(latitude, longitude, radiusKm);
+    List<NearbyCandidate> results = new ArrayList<>();
+    for (long row = minRow; row <= maxRow; row++) {
+      for (long offset = 0; offset <= colSpan; offset++) {
+        long col = (minCol + offset) % columns;
+        Map<Long, IndexedActivity> cell = cells.get(row * columns + col);
+        if (cell == null) {
+          continue;
+        }
+        for (IndexedActivity activity : cell.values()) {
+          if (type != null && activity.getType() != type) {
+            continue;
+          }
+          double distance = kernel.distanceWithin(activity.getLatitude(), activity.getLongitude());
+          if (distance >= 0) {
+            results.add(new NearbyCandidate(activity.getId(), distance));
+          }
+        }
+      }
+    }
+
+    results.sort(Comparator.comparingDouble(NearbyCandidate::getDistanceKm)
+        .thenComparingLong(NearbyCandidate::getActivityId));
+    return results;
+  }
+
+  /**
+   * The k nearest activities within maxRadiusKm, nearest first. Walks the
+   * grid outward ring by ring from the query's cell and stops once the k-th
+   * best distance is inside the area the visited rings are guaranteed to
+   * cover, so dense areas stop after a ring or two and sparse ones keep
+   * widening until the rows and columns spanned by maxRadiusKm are visited.
+   * Rows and columns reach that span separately, since near the poles the
+   * circle is many more columns wide than it is rows tall.
+   */
+  public List<NearbyCandidate> findNearest(double latitude, double longitude, int k, double maxRadiusKm,
+      ActivityType type) {
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(latitude, longitude, maxRadiusKm);
+    // Max-heap on distance holding the best k so far
+    PriorityQueue<NearbyCandidate> best = new PriorityQueue<>(
+        Comparator.comparingDouble(NearbyCandidate::getDistanceKm).reversed());
+
+    long centerRow = row(latitude);
+    long centerCol = column(longitude);
+    long maxRow = row(90.0);
+    double cellKm = cellSizeDegrees * GeoUtils.KM_PER_DEGREE_LAT;
+
+    // Rings past these hold no point within maxRadiusKm
+    long rowReach = (long) Math.ceil(GeoUtils.latDeltaDegrees(maxRadiusKm) / cellSizeDegrees);
+    double lonDelta = GeoUtils.lonDeltaDegrees(latitude, maxRadiusKm);
+    long colReach = lonDelta >= 180.0 ? columns / 2 : (long) Math.ceil(lonDelta / cellSizeDegrees);
+    long lastRing = Math.max(rowReach, colReach);
+
+    for (long ring = 0; ring <= lastRing; ring++) {
+      long rowSpan = Math.min(ring, rowReach);
+      long colSpan = Math.min(ring, colReach);
+      for (long row = centerRow - rowSpan; row <= centerRow + rowSpan; row++) {
+        if (row < 0 || row > maxRow) {
+          continue;
+        }
+        if (Math.abs(row - centerRow) == ring) {
+          // Edge row: every column in reach, each once even when the ring wraps the globe
+          for (long offset = -colSpan; offset <= colSpan && offset + colSpan < columns; offset++) {
+            visit(row, centerCol + offset, kernel, type, k, best);
+          }
+        } else if (ring <= colReach) {
+          visit(row, centerCol - ring, kernel, type, k, best);
+          if (2 * ring < columns) {
+            visit(row, centerCol + ring, kernel, type, k, best);
+          }
+        }
+      }
+
+      // Every point closer than this lies in the rings visited so far: points
+      // in unvisited rows are more than ring cells of latitude away, and
+      // points in unvisited columns are at least as far as the meridian
+      // ring cells of longitude away
+      double rowsCoveredKm = ring >= rowReach ? maxRadiusKm : ring * cellKm;
+      double colsCoveredKm = ring >= colReach ? maxRadiusKm
+          : GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.cos(Math.toRadians(latitude))
+              * Math.sin(Math.toRadians(Math.min(90.0, ring * cellSizeDegrees))));
+      double coveredKm = Math.min(rowsCoveredKm, colsCoveredKm);
+      if (best.size() == k && best.peek().getDistanceKm() <= coveredKm) {
+        break;
+      }
+    }
+
+    List<NearbyCandidate> results = new ArrayList<>(best);
+    results.sort(Comparator.comparingDouble(NearbyCandidate::getDistanceKm)
+        .thenComparingLong(NearbyCandidate::getActivityId));
+    return results;
+  }
+
+  private void visit(long row, long col, GeoDistanceKernel kernel, ActivityType type, int k,
+      PriorityQueue<NearbyCandidate> best) {
+    Map<Long, IndexedActivity> cell = cells.get(row * columns + Math.floorMod(col, columns));
+    if (cell != null) {
+      collectNearest(cell, kernel, type, k, best);
+    }
+  }
+
+  /**
+   * Activities inside the bounding box, in no particular order. A minLon
+   * greater than maxLon describes a box crossing the antimeridian.
+   */
+  public List<IndexedActivity> findWithin(double minLat, double minLon, double maxLat, double maxLon,
+      ActivityType type) {
+    long minRow = row(Math.max(-90.0, minLat));
+    long maxRow = row(Math.min(90.0, maxLat));
+    long minCol = column(minLon);
+    long colSpan = column(maxLon) - minCol;
+    if (colSpan < 0 || (colSpan == 0 && minLon > maxLon)) {
+      colSpan += columns;
+    }
+    boolean wraps = minLon > maxLon;
+
+    List<IndexedActivity> results = new ArrayList<>();
+    for (long row = minRow; row <= maxRow; row++) {
+      for (long offset = 0; offset <= colSpan && offset < columns; offset++) {
+        Map<Long, IndexedActivity> cell = cells.get(row * columns + (minCol + offset) % columns);
+        if (cell == null) {
+          continue;
+        }
+        for (IndexedActivity activity : cell.values()) {
+          if (type != null && activity.getType() != type) {
+            continue;
+          }
+          double lat = activity.getLatitude();
+          double lon = activity.getLongitude();
+          boolean inLon = wraps ? lon >= minLon || lon <= maxLon : lon >= minLon && lon <= maxLon;
+          if (inLon && lat >= minLat && lat <= maxLat) {
+            results.add(activity);
+          }
+        }
+      }
+    }
+    return results;
+  }
+
+  public void clear() {
+    activitiesById.clear();
+    cells.clear();
+  }
+
+  public int size() {
+    return activitiesById.size();
+  }
+
+  public int cellCount() {
+    return cells.size();
+  }
+
+  public boolean isReady() {
+    return ready;
+  }
+
+  public void markReady() {
+    this.ready = true;
+    log.info("Activity geo index ready: {} activities in {} cells", size(), cellCount());
+  }
+
+  private void collectNearest(Map<Long, IndexedActivity> cell, GeoDistanceKernel kernel, ActivityType type, int k,
+      PriorityQueue<NearbyCandidate> best) {
+    for (IndexedActivity activity : cell.values()) {
+      if (type != null && activity.getType() != type) {
+        continue;
+      }
+      double distance = kernel.distanceWithin(activity.getLatitude(), activity.getLongitude());
+      if (distance < 0) {
+        continue;
+      }
+      if (best.size() < k) {
+        best.add(new NearbyCandidate(activity.getId(), distance));
+      } else if (distance < best.peek().getDistanceKm()) {
+        best.poll();
+        best.add(new NearbyCandidate(activity.getId(), distance));
+      }
+    }
+  }
+
+  private void removeFromCell(long cellKey, long activityId) {
+    cells.computeIfPresent(cellKey, (key, cell) -> {
+      cell.remove(activityId);
+      return cell.isEmpty() ? null : cell;
+    });
+  }
+
+  private long cellKey(double latitude, double longitude) {
+    return row(latitude) * columns + column(longitude);
+  }
+
+  private long row(double latitude) {
+    return (long) Math.floor((latitude + 90.0) / cellSizeDegrees);
+  }
+
+  private long column(double longitude) {
+    long col = (long) Math.floor((longitude + 180.0) / cellSizeDegrees) % columns;
+    return col < 0 ? col + columns : col;
+  }
+
+}
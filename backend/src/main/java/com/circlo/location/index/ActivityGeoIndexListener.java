@@ -0,0 +1,70 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Loads the geo grid at startup and applies every activity change after
+ * it commits. Changes committed on other nodes arrive here too, relayed
+ * by {@link com.circlo.activity.relay.ActivityChangeRelay}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ActivityGeoIndexListener {
+
+  private final ActivityGeoIndex activityGeoIndex;
+  private final OpenActivityLoader openActivityLoader;
+
+  @Value("${app.location.index.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOpenActivities() {
+    if (!enabled) {
+      log.info("Activity geo index disabled, nearby search will use the database");
+      return;
+    }
+
+    log.info("Loading OPEN activities into geo index");
+    long startTime = System.currentTimeMillis();
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        activityGeoIndex.upsert(IndexedActivity.from(ActivityChangedEvent.of(activity)));
+      }
+    });
+
+    activityGeoIndex.markReady();
+    log.info("Geo index loaded in {} ms", System.currentTimeMillis() - startTime);
+  }
+
+  // Runs first so listeners that read the grid, like cluster invalidation, see the change
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    if (event.isOpen()) {
+      activityGeoIndex.upsert(IndexedActivity.from(event));
+    } else {
+      activityGeoIndex.remove(event.getActivityId());
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.ZoneOffset;
+
+@Getter
+@AllArgsConstructor
+public class IndexedActivity {
+
+  private final long id;
+  private final double latitude;
+  private final double longitude;
+  private final ActivityType type;
+  private final ActivityStatus status;
+  private final int currentMembers;
+  private final int maxMembers;
+  private final long scheduledAtEpochSecond; // scheduledDate read as UTC
+
+  public static IndexedActivity from(ActivityChangedEvent event) {
+    return new IndexedActivity(
+        event.getActivityId(),
+        event.getLatitude(),
+        event.getLongitude(),
+        event.getType(),
+        event.getStatus(),
+        event.getCurrentMembers(),
+        event.getMaxMembers(),
+        event.getScheduledDate().toEpochSecond(ZoneOffset.UTC));
+  }
+
+  public int getRemainingCapacity() {
+    return Math.max(0, maxMembers - currentMembers);
+  }
+
+}
@@ -0,0 +1,13 @@
+package com.circlo.location.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class NearbyCandidate {
+
+  private final long activityId;
+  private final double distanceKm;
+
+}
@@ -0,0 +1,301 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.service.OpenActivityLoader;
+import com.circlo.location.util.GeoDistanceKernel;
+import com.circlo.location.util.GeoUtils;
+import com.circlo.location.util.MortonCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * OPEN activities in a memory-mapped segment of packed records sorted by
+ * Morton key, for activity sets too large to keep as objects on the heap.
+ * A bounding box becomes a handful of key-range scans over the segment.
+ *
+ * <p>The segment is immutable. Changes since it was built sit in a small
+ * on-heap overlay that shadows the segment's records, and a scheduled
+ * compaction folds the overlay into a fresh segment once it grows past a
+ * threshold, so heap use is bounded by the threshold rather than by the
+ * number of activities.
+ */
+@Component
+@Slf4j
+public class OffHeapActivityIndex {
+
+  // Bounding boxes are scanned as at most about this many key ranges
+  private static final int MAX_SCAN_BLOCKS = 16;
+  private static final Comparator<NearbyCandidate> BY_DISTANCE =
+      Comparator.comparingDouble(NearbyCandidate::getDistanceKm).thenComparingLong(NearbyCandidate::getActivityId);
+
+  private final OpenActivityLoader openActivityLoader;
+  private final AtomicLong segmentSequence = new AtomicLong();
+
+  // Latest state of activities changed since the segment was built
+  private final Map<Long, IndexedActivity> upserts = new ConcurrentHashMap<>();
+  private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+
+  private volatile PackedActivitySegment segment;
+  private volatile boolean ready = false;
+
+  @Value("${app.location.index.off-heap.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.location.index.off-heap.directory:${java.io.tmpdir}/circlo-index}")
+  private String directory;
+
+  @Value("${app.location.index.off-heap.compact-threshold:10000}")
+  private int compactThreshold;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  public OffHeapActivityIndex(OpenActivityLoader openActivityLoader, MeterRegistry meterRegistry) {
+    this.openActivityLoader = openActivityLoader;
+
+    Gauge.builder("circlo.location.offheap.records", this, index -> index.segmentSize())
+        .description("Records in the off-heap activity segment")
+        .register(meterRegistry);
+    Gauge.builder("circlo.location.offheap.mapped-bytes", this, index -> index.mappedBytes())
+        .description("Bytes mapped for the off-heap activity segment")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("circlo.location.offheap.overlay.size", this, index -> index.upserts.size() + index.removed.size())
+        .description("Changes held on the heap until the next compaction")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+
+    log.info("Loading OPEN activities into off-heap index");
+    long startTime = System.currentTimeMillis();
+    clearDirectory();
+    PackedActivitySegment loaded = newSegment();
+    openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      for (Activity activity : batch) {
+        loaded.append(activity.getId(), activity.getLocation().getY(), activity.getLocation().getX(),
+            activity.getType(), activity.getStatus(), activity.getMaxMembers() - activity.getCurrentMembers());
+      }
+    });
+
+    segment = loaded.seal();
+    ready = true;
+    log.info("Off-heap index loaded with {} activities in {} ms",
+        loaded.size(), System.currentTimeMillis() - startTime);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    long activityId = event.getActivityId();
+    if (event.isOpen()) {
+      removed.remove(activityId);
+      upserts.put(activityId, IndexedActivity.from(event));
+    } else {
+      upserts.remove(activityId);
+      removed.add(activityId);
+    }
+  }
+
+  /**
+   * Rebuilds the segment with the overlay folded in once the overlay holds
+   * compact-threshold changes. Changes arriving meanwhile stay in the
+   * overlay.
+   */
+  @Scheduled(fixedDelayString = "${app.location.index.off-heap.compact-interval-millis:60000}")
+  public void compact() {
+    if (!ready || upserts.size() + removed.size() < compactThreshold) {
+      return;
+    }
+
+    long startTime = System.currentTimeMillis();
+    Map<Long, IndexedActivity> upsertSnapshot = new HashMap<>(upserts);
+    Set<Long> removedSnapshot = new HashSet<>(removed);
+
+    PackedActivitySegment previous = segment;
+    PackedActivitySegment compacted = newSegment();
+    for (long i = 0; i < previous.size(); i++) {
+      long activityId = previous.id(i);
+      if (!upsertSnapshot.containsKey(activityId) && !removedSnapshot.contains(activityId)) {
+        compacted.appendFrom(previous, i);
+      }
+    }
+    for (IndexedActivity activity : upsertSnapshot.values()) {
+      compacted.append(activity.getId(), activity.getLatitude(), activity.getLongitude(),
+          activity.getType(), activity.getStatus(), activity.getRemainingCapacity());
+    }
+    segment = compacted.seal();
+
+    // Only drop overlay entries the new segment reflects; later changes must keep shadowing it
+    upsertSnapshot.forEach(upserts::remove);
+    removed.removeAll(removedSnapshot);
+    previous.delete();
+
+    log.info("Compacted off-heap index: {} changes folded, {} activities, {} ms",
+        upsertSnapshot.size() + removedSnapshot.size(), compacted.size(), System.currentTimeMillis() - startTime);
+  }
+
+  public List<NearbyCandidate> findNearby(double latitude, double longitude, double radiusKm, ActivityType type) {
+    double latDelta = GeoUtils.latDeltaDegrees(radiusKm);
+    double lonDelta = GeoUtils.lonDeltaDegrees(latitude, radiusKm);
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(latitude, longitude, radiusKm);
+
+    List<NearbyCandidate> results = new ArrayList<>();
+    scan(Math.max(-90.0, latitude - latDelta), longitude - lonDelta,
+        Math.min(90.0, latitude + latDelta), longitude + lonDelta, type,
+        (id, lat, lon) -> {
+          double distance = kernel.distanceWithin(lat, lon);
+          if (distance >= 0) {
+            results.add(new NearbyCandidate(id, distance));
+          }
+        });
+    results.sort(BY_DISTANCE);
+    return results;
+  }
+
+  /**
+   * Activities inside the bounding box with their distance from the given
+   * center, nearest first. A minLon greater than maxLon describes a box
+   * crossing the antimeridian.
+   */
+  public List<NearbyCandidate> findWithin(double minLat, double minLon, double maxLat, double maxLon,
+      ActivityType type, double centerLat, double centerLon) {
+    GeoDistanceKernel center = GeoDistanceKernel.around(centerLat, centerLon, 0);
+    double east = minLon > maxLon ? maxLon + 360.0 : maxLon;
+
+    List<NearbyCandidate> results = new ArrayList<>();
+    scan(minLat, minLon, maxLat, east, type,
+        (id, lat, lon) -> results.add(new NearbyCandidate(id, center.haversine(lat, lon))));
+    results.sort(BY_DISTANCE);
+    return results;
+  }
+
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  /**
+   * Visits every indexed activity inside the box, where minLon may run below
+   * -180 and maxLon above 180 to express a box across the antimeridian.
+   */
+  private void scan(double minLat, double minLon, double maxLat, double maxLon, ActivityType type,
+      PointVisitor visitor) {
+    if (minLon < -180.0) {
+      scan(minLat, minLon + 360.0, maxLat, 180.0, type, visitor);
+      minLon = -180.0;
+    }
+    if (maxLon > 180.0) {
+      scan(minLat, -180.0, maxLat, maxLon - 360.0, type, visitor);
+      maxLon = 180.0;
+    }
+
+    PackedActivitySegment current = segment;
+    for (long[] range : MortonCode.ranges(minLat, minLon, maxLat, maxLon, MAX_SCAN_BLOCKS)) {
+      for (long i = current.lowerBound(range[0]); i < current.size() && current.key(i) <= range[1]; i++) {
+        if (type != null && current.type(i) != type) {
+          continue;
+        }
+        double lat = current.latitude(i);
+        double lon = current.longitude(i);
+        if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) {
+          continue;
+        }
+        // Checked last and boxed once: most scanned records fall outside the box
+        Long activityId = current.id(i);
+        if (!upserts.containsKey(activityId) && !removed.contains(activityId)) {
+          visitor.visit(activityId, lat, lon);
+        }
+      }
+    }
+
+    // The overlay is bounded by the compaction threshold, so a linear pass is fine
+    for (IndexedActivity activity : upserts.values()) {
+      if (type != null && activity.getType() != type) {
+        continue;
+      }
+      double lat = activity.getLatitude();
+      double lon = activity.getLongitude();
+      if (lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon) {
+        visitor.visit(activity.getId(), lat, lon);
+      }
+    }
+  }
+
+  private PackedActivitySegment newSegment() {
+    Path dir = Paths.get(directory);
+    try {
+      Files.createDirectories(dir);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create off-heap index directory " + dir, e);
+    }
+    return PackedActivitySegment.create(dir.resolve("activities-" + segmentSequence.incrementAndGet() + ".seg"));
+  }
+
+  // Segments from a previous run are useless once the index reloads
+  private void clearDirectory() {
+    Path dir = Paths.get(directory);
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      files.filter(file -> file.getFileName().toString().endsWith(".seg")).forEach(file -> {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          log.warn("Could not delete stale index segment {}: {}", file, e.getMessage());
+        }
+      });
+    } catch (IOException e) {
+      log.warn("Could not list off-heap index directory {}: {}", dir, e.getMessage());
+    }
+  }
+
+  private long segmentSize() {
+    PackedActivitySegment current = segment;
+    return current != null ? current.size() : 0;
+  }
+
+  private long mappedBytes() {
+    PackedActivitySegment current = segment;
+    return current != null ? current.mappedBytes() : 0;
+  }
+
+  @FunctionalInterface
+  private interface PointVisitor {
+    void visit(long activityId, double latitude, double longitude);
+  }
+
+}
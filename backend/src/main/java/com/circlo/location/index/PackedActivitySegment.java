@@ -0,0 +1,248 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.util.MortonCode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-width activity records in a memory-mapped file, sorted by Morton
+ * key once written. Nothing per record lives on the heap: a segment is a
+ * file, its mappings and a record count.
+ *
+ * <p>Record layout (32 bytes): Morton key (long), id (long), latitude and
+ * longitude in 1e-7 degrees (int each), type ordinal (byte), status ordinal
+ * (byte), remaining capacity (short), 4 bytes padding.
+ */
+class PackedActivitySegment {
+
+  static final int RECORD_BYTES = 32;
+
+  // 32 MiB per mapping; the file grows one mapping at a time
+  private static final int CHUNK_SHIFT = 20;
+  private static final long CHUNK_RECORDS = 1L << CHUNK_SHIFT;
+  private static final long CHUNK_MASK = CHUNK_RECORDS - 1;
+  private static final double FIXED_POINT = 1e7;
+
+  private static final int KEY = 0;
+  private static final int ID = 8;
+  private static final int LATITUDE = 16;
+  private static final int LONGITUDE = 20;
+  private static final int TYPE = 24;
+  private static final int STATUS = 25;
+  private static final int CAPACITY = 26;
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+  private static final ActivityStatus[] STATUSES = ActivityStatus.values();
+
+  private final Path file;
+  private final FileChannel channel;
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+  private long size;
+
+  private PackedActivitySegment(Path file) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  static PackedActivitySegment create(Path file) {
+    try {
+      return new PackedActivitySegment(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create index segment " + file, e);
+    }
+  }
+
+  void append(long id, double latitude, double longitude, ActivityType type, ActivityStatus status, int capacity) {
+    long index = size;
+    MappedByteBuffer chunk = writableChunk(index);
+    int offset = offset(index);
+    chunk.putLong(offset + KEY, MortonCode.encode(latitude, longitude));
+    chunk.putLong(offset + ID, id);
+    chunk.putInt(offset + LATITUDE, (int) Math.round(latitude * FIXED_POINT));
+    chunk.putInt(offset + LONGITUDE, (int) Math.round(longitude * FIXED_POINT));
+    chunk.put(offset + TYPE, (byte) type.ordinal());
+    chunk.put(offset + STATUS, (byte) status.ordinal());
+    chunk.putShort(offset + CAPACITY, (short) Math.min(Short.MAX_VALUE, Math.max(0, capacity)));
+    size = index + 1;
+  }
+
+  void appendFrom(PackedActivitySegment source, long sourceIndex) {
+    long index = size;
+    MappedByteBuffer chunk = writableChunk(index);
+    MappedByteBuffer sourceChunk = source.chunk(sourceIndex);
+    int offset = offset(index);
+    int sourceOffset = offset(sourceIndex);
+    for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+      chunk.putLong(offset + i, sourceChunk.getLong(sourceOffset + i));
+    }
+    size = index + 1;
+  }
+
+  /**
+   * Sorts the records by Morton key in place and closes the file for
+   * writing. The mappings stay valid after the channel is closed.
+   */
+  PackedActivitySegment seal() {
+    if (size > 1) {
+      sort(0, size - 1);
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot close index segment " + file, e);
+    }
+    return this;
+  }
+
+  /**
+   * Index of the first record whose key is not below the given key.
+   */
+  long lowerBound(long key) {
+    long low = 0;
+    long high = size;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      if (key(mid) < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  long size() {
+    return size;
+  }
+
+  long mappedBytes() {
+    return chunks.size() * CHUNK_RECORDS * RECORD_BYTES;
+  }
+
+  long key(long index) {
+    return chunk(index).getLong(offset(index) + KEY);
+  }
+
+  long id(long index) {
+    return chunk(index).getLong(offset(index) + ID);
+  }
+
+  double latitude(long index) {
+    return chunk(index).getInt(offset(index) + LATITUDE) / FIXED_POINT;
+  }
+
+  double longitude(long index) {
+    return chunk(index).getInt(offset(index) + LONGITUDE) / FIXED_POINT;
+  }
+
+  ActivityType type(long index) {
+    return TYPES[chunk(index).get(offset(index) + TYPE)];
+  }
+
+  ActivityStatus status(long index) {
+    return STATUSES[chunk(index).get(offset(index) + STATUS)];
+  }
+
+  int capacity(long index) {
+    return chunk(index).getShort(offset(index) + CAPACITY);
+  }
+
+  /**
+   * Deletes the file. Mappings are released by the JVM once no query holds
+   * the segment any more.
+   */
+  void delete() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot delete index segment " + file, e);
+    }
+  }
+
+  private MappedByteBuffer chunk(long index) {
+    return chunks.get((int) (index >>> CHUNK_SHIFT));
+  }
+
+  private MappedByteBuffer writableChunk(long index) {
+    int chunkIndex = (int) (index >>> CHUNK_SHIFT);
+    if (chunkIndex == chunks.size()) {
+      try {
+        chunks.add(channel.map(FileChannel.MapMode.READ_WRITE,
+            chunkIndex * CHUNK_RECORDS * RECORD_BYTES, CHUNK_RECORDS * RECORD_BYTES));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot grow index segment " + file, e);
+      }
+    }
+    return chunks.get(chunkIndex);
+  }
+
+  private static int offset(long index) {
+    return (int) (index & CHUNK_MASK) * RECORD_BYTES;
+  }
+
+  // Quicksort with Hoare partitioning, which copes with many equal keys
+  // (activities at the same venue); recursing on the smaller side bounds the depth
+  private void sort(long low, long high) {
+    while (high - low > 16) {
+      long pivot = medianKey(low, low + ((high - low) >>> 1), high);
+      long i = low - 1;
+      long j = high + 1;
+      while (true) {
+        do {
+          i++;
+        } while (key(i) < pivot);
+        do {
+          j--;
+        } while (key(j) > pivot);
+        if (i >= j) {
+          break;
+        }
+        swap(i, j);
+      }
+      if (j - low < high - j) {
+        sort(low, j);
+        low = j + 1;
+      } else {
+        sort(j + 1, high);
+        high = j;
+      }
+    }
+
+    for (long i = low + 1; i <= high; i++) {
+      for (long j = i; j > low && key(j - 1) > key(j); j--) {
+        swap(j - 1, j);
+      }
+    }
+  }
+
+  private long medianKey(long a, long b, long c) {
+    long ka = key(a);
+    long kb = key(b);
+    long kc = key(c);
+    return Math.max(Math.min(ka, kb), Math.min(Math.max(ka, kb), kc));
+  }
+
+  private void swap(long a, long b) {
+    MappedByteBuffer chunkA = chunk(a);
+    MappedByteBuffer chunkB = chunk(b);
+    int offsetA = offset(a);
+    int offsetB = offset(b);
+    for (int i = 0; i < RECORD_BYTES; i += Long.BYTES) {
+      long value = chunkA.getLong(offsetA + i);
+      chunkA.putLong(offsetA + i, chunkB.getLong(offsetB + i));
+      chunkB.putLong(offsetB + i, value);
+    }
+  }
+
+}
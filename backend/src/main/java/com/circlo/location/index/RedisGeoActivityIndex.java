@@ -0,0 +1,262 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.Activity;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.circlo.activity.service.OpenActivityLoader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.GeoOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Redis GEO sets of OPEN activities, one per {@link ActivityType} plus an
+ * "all" set, shared by every application node.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisGeoActivityIndex {
+
+  private static final String KEY_PREFIX = "geo:activities:";
+  private static final String ALL_KEY = KEY_PREFIX + "all";
+  private static final String REBUILD_PREFIX = KEY_PREFIX + "rebuild:";
+  private static final String REBUILD_LOCK_KEY = KEY_PREFIX + "rebuild-lock";
+  // Last change per activity made while a rebuild runs, replayed before and after the swap
+  private static final String REBUILD_CHANGES_KEY = KEY_PREFIX + "rebuild-changes";
+  // Set once a rebuild has swapped the live sets in; gone with them if Redis is flushed
+  private static final String BUILT_KEY = KEY_PREFIX + "built";
+
+  private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+      "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+      Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+  private final OpenActivityLoader openActivityLoader;
+  private final ActivitySideEffectPipeline activitySideEffectPipeline;
+
+  @Value("${app.location.redis-geo.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.index.load-batch-size:5000}")
+  private int loadBatchSize;
+
+  private volatile boolean started = false;
+  private volatile boolean ready = false;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+
+    started = true;
+    tryRebuild();
+  }
+
+  /**
+   * Until the live sets exist this node queries the database. Checks again
+   * whether the node holding the lock has finished, or takes the rebuild
+   * over if that node went away and its lock expired.
+   */
+  @Scheduled(fixedDelayString = "${app.location.redis-geo.ready-poll-millis:5000}")
+  public void awaitRebuild() {
+    if (enabled && started && !ready) {
+      tryRebuild();
+    }
+  }
+
+  private synchronized void tryRebuild() {
+    if (ready) {
+      return;
+    }
+
+    String token = UUID.randomUUID().toString();
+    boolean acquired = false;
+    try {
+      // Only one node rebuilds at a time, the others reuse the shared sets
+      acquired = Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(
+          REBUILD_LOCK_KEY, token, Duration.ofMinutes(5)));
+      if (acquired) {
+        rebuildSets();
+        ready = true;
+      } else if (Boolean.TRUE.equals(redisTemplate.hasKey(BUILT_KEY))) {
+        ready = true;
+      } else {
+        log.info("Redis geo sets are being built by another node, nearby queries use the database meanwhile");
+      }
+    } catch (Exception e) {
+      log.warn("Redis geo index unavailable: {}", e.getMessage());
+    } finally {
+      if (acquired) {
+        releaseLock(token);
+      }
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled || event.isRemote()) {
+      return;
+    }
+
+    String member = String.valueOf(event.getActivityId());
+    String typeKey = typeKey(event.getType());
+    // GEOADD/ZREM are idempotent, so the pipeline may safely retry them
+    String change = encodeChange(event);
+    activitySideEffectPipeline.submit("redis-geo", event.getActivityId(), () -> {
+      // Recorded before the live write, so a rebuild that swaps in between still replays it
+      if (Boolean.TRUE.equals(redisTemplate.hasKey(REBUILD_LOCK_KEY))) {
+        redisTemplate.opsForHash().put(REBUILD_CHANGES_KEY, member, change);
+      }
+      applyChange(ALL_KEY, typeKey, member, change);
+    });
+  }
+
+  public List<NearbyCandidate> findNearby(double latitude, double longitude, double radiusKm, ActivityType type) {
+    String key = type != null ? typeKey(type) : ALL_KEY;
+
+    GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().search(
+        key,
+        GeoReference.fromCoordinate(longitude, latitude),
+        new Distance(radiusKm, Metrics.KILOMETERS),
+        RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs().includeDistance().sortAscending());
+
+    List<NearbyCandidate> candidates = new ArrayList<>();
+    if (results != null) {
+      results.forEach(result -> candidates.add(new NearbyCandidate(
+          Long.parseLong(result.getContent().getName()),
+          result.getDistance().getValue())));
+    }
+    return candidates;
+  }
+
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  private void rebuildSets() {
+    log.info("Rebuilding redis geo sets from OPEN activities");
+    long startTime = System.currentTimeMillis();
+    GeoOperations<String, String> geo = redisTemplate.opsForGeo();
+
+    redisTemplate.delete(rebuildKeys());
+    redisTemplate.delete(REBUILD_CHANGES_KEY);
+
+    int total = openActivityLoader.forEachBatch(loadBatchSize, batch -> {
+      Map<String, Point> all = new HashMap<>();
+      Map<ActivityType, Map<String, Point>> byType = new EnumMap<>(ActivityType.class);
+      for (Activity activity : batch) {
+        String member = String.valueOf(activity.getId());
+        Point point = new Point(activity.getLocation().getX(), activity.getLocation().getY());
+        all.put(member, point);
+        byType.computeIfAbsent(activity.getType(), t -> new HashMap<>()).put(member, point);
+      }
+
+      geo.add(REBUILD_PREFIX + "all", all);
+      byType.forEach((type, members) -> geo.add(REBUILD_PREFIX + type.name(), members));
+    });
+
+    // Changes committed while loading may predate what the loader read, and
+    // ones made to the old live sets just before the swap would be lost
+    replayChanges(REBUILD_PREFIX + "all", REBUILD_PREFIX);
+    swapIn(REBUILD_PREFIX + "all", ALL_KEY);
+    for (ActivityType type : ActivityType.values()) {
+      swapIn(REBUILD_PREFIX + type.name(), typeKey(type));
+    }
+    replayChanges(ALL_KEY, KEY_PREFIX);
+    redisTemplate.delete(REBUILD_CHANGES_KEY);
+    redisTemplate.opsForValue().set(BUILT_KEY, String.valueOf(System.currentTimeMillis()));
+
+    log.info("Redis geo sets rebuilt with {} activities in {} ms", total, System.currentTimeMillis() - startTime);
+  }
+
+  private void replayChanges(String allKey, String typeKeyPrefix) {
+    Map<Object, Object> changes = redisTemplate.opsForHash().entries(REBUILD_CHANGES_KEY);
+    changes.forEach((member, change) -> {
+      String encoded = (String) change;
+      String type = encoded.split(":")[1];
+      applyChange(allKey, typeKeyPrefix + type, (String) member, encoded);
+    });
+    if (!changes.isEmpty()) {
+      log.info("Replayed {} activity changes made during the redis geo rebuild", changes.size());
+    }
+  }
+
+  /**
+   * "A:TYPE:lon:lat" for an activity to add, "R:TYPE" for one to remove.
+   */
+  private String encodeChange(ActivityChangedEvent event) {
+    if (event.isOpen()) {
+      return "A:" + event.getType().name() + ":" + event.getLongitude() + ":" + event.getLatitude();
+    }
+    return "R:" + event.getType().name();
+  }
+
+  private void applyChange(String allKey, String typeKey, String member, String change) {
+    GeoOperations<String, String> geo = redisTemplate.opsForGeo();
+    String[] parts = change.split(":");
+    if ("A".equals(parts[0])) {
+      Point point = new Point(Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+      geo.add(allKey, point, member);
+      geo.add(typeKey, point, member);
+    } else {
+      geo.remove(allKey, member);
+      geo.remove(typeKey, member);
+    }
+  }
+
+  private void releaseLock(String token) {
+    try {
+      redisTemplate.execute(RELEASE_LOCK, List.of(REBUILD_LOCK_KEY), token);
+    } catch (Exception e) {
+      log.warn("Could not release the redis geo rebuild lock: {}", e.getMessage());
+    }
+  }
+
+  private void swapIn(String rebuildKey, String liveKey) {
+    if (Boolean.TRUE.equals(redisTemplate.hasKey(rebuildKey))) {
+      redisTemplate.rename(rebuildKey, liveKey);
+    } else {
+      redisTemplate.delete(liveKey);
+    }
+  }
+
+  private List<String> rebuildKeys() {
+    List<String> keys = new ArrayList<>();
+    keys.add(REBUILD_PREFIX + "all");
+    for (ActivityType type : ActivityType.values()) {
+      keys.add(REBUILD_PREFIX + type.name());
+    }
+    return keys;
+  }
+
+  private String typeKey(ActivityType type) {
+    return KEY_PREFIX + type.name();
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.circlo.location.push;
+
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.circlo.location.dto.ActivityTileDeltaDTO;
+import com.circlo.location.util.TileMath;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Pushes activity deltas to /topic/geo/{tileId}, where tileId is the
+ * quadkey of the activity's tile. Clients subscribe to the tiles covering
+ * their viewport instead of polling /nearby.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityTilePublisher {
+
+  public static final String TOPIC_PREFIX = "/topic/geo/";
+
+  private final SimpMessagingTemplate messagingTemplate;
+  private final ActivitySideEffectPipeline activitySideEffectPipeline;
+
+  @Value("${app.location.push.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.push.zoom:14}")
+  private int zoom;
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onActivityChanged(ActivityChangedEvent event) {
+    if (!enabled) {
+      return;
+    }
+
+    String tileId = TileMath.quadkey(event.getLatitude(), event.getLongitude(), zoom);
+    ActivityTileDeltaDTO delta = ActivityTileDeltaDTO.builder()
+        .action(event.isOpen() ? "UPSERT" : "REMOVE")
+        .activityId(event.getActivityId())
+        .title(event.getTitle())
+        .type(event.getType().name())
+        .status(event.getStatus().name())
+        .latitude(event.getLatitude())
+        .longitude(event.getLongitude())
+        .currentMembers(event.getCurrentMembers())
+        .maxMembers(event.getMaxMembers())
+        .scheduledDate(event.getScheduledDate())
+        .build();
+
+    // Deltas carry the full state, so a duplicate from a retry is harmless to clients
+    activitySideEffectPipeline.submit("tile-push", event.getActivityId(),
+        () -> messagingTemplate.convertAndSend(TOPIC_PREFIX + tileId, delta));
+  }
+
+  public int getZoom() {
+    return zoom;
+  }
+
+}
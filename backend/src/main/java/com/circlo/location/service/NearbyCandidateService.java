@@ -0,0 +1,189 @@
+package com.circlo.location.service;
+
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.common.datasource.ShardMap;
+import com.circlo.location.index.ActivityGeoIndex;
+import com.circlo.location.index.IndexedActivity;
+import com.circlo.location.index.NearbyCandidate;
+import com.circlo.location.index.OffHeapActivityIndex;
+import com.circlo.location.index.RedisGeoActivityIndex;
+import com.circlo.location.util.GeoDistanceKernel;
+import com.circlo.location.util.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NearbyCandidateService {
+
+  private static final Comparator<NearbyCandidate> BY_DISTANCE =
+      Comparator.comparingDouble(NearbyCandidate::getDistanceKm).thenComparingLong(NearbyCandidate::getActivityId);
+
+  private final ActivityGeoIndex activityGeoIndex;
+  private final OffHeapActivityIndex offHeapActivityIndex;
+  private final RedisGeoActivityIndex redisGeoActivityIndex;
+  private final ActivityRepository activityRepository;
+  private final ShardMap shardMap;
+
+  /**
+   * Resolves nearby OPEN activity ids with their distance, ordered by
+   * distance. Tries the local grid, then the off-heap index, then the
+   * shared Redis GEO sets, then the spatial index in the database.
+   */
+  public List<NearbyCandidate> findNearby(double latitude, double longitude, double radiusKm, ActivityType type) {
+    if (activityGeoIndex.isReady()) {
+      return activityGeoIndex.findNearby(latitude, longitude, radiusKm, type);
+    }
+
+    if (offHeapActivityIndex.isReady()) {
+      return offHeapActivityIndex.findNearby(latitude, longitude, radiusKm, type);
+    }
+
+    if (redisGeoActivityIndex.isReady()) {
+      try {
+        return redisGeoActivityIndex.findNearby(latitude, longitude, radiusKm, type);
+      } catch (Exception e) {
+        log.warn("Redis geo search failed, falling back to database: {}", e.getMessage());
+      }
+    }
+
+    return findNearbyInDatabase(latitude, longitude, radiusKm, type);
+  }
+
+  /**
+   * The k nearest OPEN activities within maxRadiusKm, nearest first. The
+   * grid walks its cells outward; the other sources double the radius from
+   * initialRadiusKm until k activities are in range.
+   */
+  public List<NearbyCandidate> findNearest(double latitude, double longitude, ActivityType type, int k,
+      double initialRadiusKm, double maxRadiusKm) {
+    if (activityGeoIndex.isReady()) {
+      return activityGeoIndex.findNearest(latitude, longitude, k, maxRadiusKm, type);
+    }
+
+    double radius = Math.min(initialRadiusKm, maxRadiusKm);
+    while (true) {
+      List<NearbyCandidate> candidates = findNearby(latitude, longitude, radius, type);
+      if (candidates.size() >= k || radius >= maxRadiusKm) {
+        return candidates.size() > k ? candidates.subList(0, k) : candidates;
+      }
+      radius = Math.min(radius * 2, maxRadiusKm);
+    }
+  }
+
+  /**
+   * Up to limit OPEN activities inside the bounding box with their distance
+   * from its center, nearest first. A minLon greater than maxLon describes
+   * a box crossing the antimeridian. Uses the grid or the off-heap index
+   * when one is ready, otherwise one MBRContains query per overlapped shard.
+   */
+  public List<NearbyCandidate> findWithin(double minLat, double minLon, double maxLat, double maxLon,
+      ActivityType type, int limit) {
+    double centerLat = (minLat + maxLat) / 2;
+    double centerLon = centerLongitude(minLon, maxLon);
+
+    if (activityGeoIndex.isReady()) {
+      GeoDistanceKernel center = GeoDistanceKernel.around(centerLat, centerLon, 0);
+      return activityGeoIndex.findWithin(minLat, minLon, maxLat, maxLon, type).stream()
+          .map(activity -> new NearbyCandidate(activity.getId(),
+              center.haversine(activity.getLatitude(), activity.getLongitude())))
+          .sorted(BY_DISTANCE)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+
+    if (offHeapActivityIndex.isReady()) {
+      List<NearbyCandidate> candidates = offHeapActivityIndex.findWithin(
+          minLat, minLon, maxLat, maxLon, type, centerLat, centerLon);
+      return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+    }
+
+    List<String> boxes = GeoUtils.envelopeWkts(minLat, minLon, maxLat, maxLon);
+    return shardMap.shardsWithin(minLat, minLon, maxLat, maxLon).stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () -> boxes.stream()
+            .flatMap(box -> activityRepository.findActivityIdsWithin(
+                centerLat, centerLon, box, type != null ? type.name() : null, limit).stream())
+            .collect(Collectors.toList())).stream())
+        .map(row -> new NearbyCandidate(row.getId(), row.getDistanceMeters() / 1000.0))
+        .sorted(BY_DISTANCE)
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * The grid's entry for an activity, or null when the grid isn't serving.
+   */
+  public IndexedActivity indexedActivity(long activityId) {
+    return activityGeoIndex.isReady() ? activityGeoIndex.get(activityId) : null;
+  }
+
+  public boolean hasLocalIndex() {
+    return activityGeoIndex.isReady();
+  }
+
+  /**
+   * Up to {@code limit} candidates strictly after {@code cursor} in
+   * {@link NearbyCursor#PAGE_ORDER}.
+   */
+  public List<NearbyCandidate> findNearbyPage(double latitude, double longitude, double radiusKm,
+      ActivityType type, NearbyCursor cursor, int limit) {
+    if (activityGeoIndex.isReady() || offHeapActivityIndex.isReady() || redisGeoActivityIndex.isReady()) {
+      return findNearby(latitude, longitude, radiusKm, type).stream()
+          .filter(cursor::isBefore)
+          .sorted(NearbyCursor.PAGE_ORDER)
+          .limit(limit)
+          .collect(Collectors.toList());
+    }
+
+    // Each shard and box seeks past the same cursor; merged, the first rows are the page
+    List<String> boxes = GeoUtils.boundingBoxWkts(latitude, longitude, radiusKm);
+    return shardMap.shardsFor(latitude, longitude, radiusKm).stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () -> boxes.stream()
+            .flatMap(box -> activityRepository.findNearbyActivityIdsAfter(
+                latitude, longitude,
+                box,
+                radiusKm * 1000,
+                type != null ? type.name() : null,
+                cursor.getLastDistanceMeters(),
+                cursor.getLastId(),
+                limit).stream())
+            .collect(Collectors.toList())).stream())
+        .map(row -> new NearbyCandidate(row.getId(), row.getDistanceMeters() / 1000.0))
+        .sorted(NearbyCursor.PAGE_ORDER)
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Runs the spatial query on every shard the search circle touches and
+   * merges the results by distance.
+   */
+  public List<NearbyCandidate> findNearbyInDatabase(double latitude, double longitude, double radiusKm,
+      ActivityType type) {
+    List<String> boxes = GeoUtils.boundingBoxWkts(latitude, longitude, radiusKm);
+    return shardMap.shardsFor(latitude, longitude, radiusKm).stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () -> boxes.stream()
+            .flatMap(box -> activityRepository.findNearbyActivityIds(
+                latitude, longitude,
+                box,
+                radiusKm * 1000,
+                type != null ? type.name() : null).stream())
+            .collect(Collectors.toList())).stream())
+        .map(row -> new NearbyCandidate(row.getId(), row.getDistanceMeters() / 1000.0))
+        .sorted(BY_DISTANCE)
+        .collect(Collectors.toList());
+  }
+
+  private static double centerLongitude(double minLon, double maxLon) {
+    double center = minLon <= maxLon ? (minLon + maxLon) / 2 : (minLon + maxLon + 360.0) / 2;
+    return center > 180.0 ? center - 360.0 : center;
+  }
+
+}
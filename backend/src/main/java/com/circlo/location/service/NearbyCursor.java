@@ -0,0 +1,72 @@
+package com.circlo.location.service;
+
+import com.circlo.location.index.NearbyCandidate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Opaque position in a distance-ordered nearby result: the (distance, id)
+ * of the last row a client has seen. Pages are ordered by whole meters and
+ * then id rather than by the raw distance, because a double that went
+ * through text, SQL and back can't be matched exactly, while an integer
+ * can and the id settles every tie.
+ */
+@Getter
+@AllArgsConstructor
+public class NearbyCursor {
+
+  public static final NearbyCursor START = new NearbyCursor(-1L, 0L);
+
+  /**
+   * The order pages are cut in.
+   */
+  public static final Comparator<NearbyCandidate> PAGE_ORDER =
+      Comparator.comparingLong(NearbyCursor::distanceMeters).thenComparingLong(NearbyCandidate::getActivityId);
+
+  private final long lastDistanceMeters;
+  private final long lastId;
+
+  public static NearbyCursor after(NearbyCandidate candidate) {
+    return new NearbyCursor(distanceMeters(candidate), candidate.getActivityId());
+  }
+
+  /**
+   * The candidate's distance in whole meters. Database rows arrive as
+   * meters / 1000, and the keyset query floors meters / 1000 * 1000 to
+   * match this exactly.
+   */
+  public static long distanceMeters(NearbyCandidate candidate) {
+    return (long) Math.floor(candidate.getDistanceKm() * 1000.0);
+  }
+
+  public static NearbyCursor decode(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return START;
+    }
+
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.indexOf(':');
+      return new NearbyCursor(
+          Long.parseLong(decoded.substring(0, separator)),
+          Long.parseLong(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      throw new RuntimeException("Invalid cursor");
+    }
+  }
+
+  public String encode() {
+    String raw = lastDistanceMeters + ":" + lastId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public boolean isBefore(NearbyCandidate candidate) {
+    int byDistance = Long.compare(distanceMeters(candidate), lastDistanceMeters);
+    return byDistance > 0 || (byDistance == 0 && candidate.getActivityId() > lastId);
+  }
+
+}
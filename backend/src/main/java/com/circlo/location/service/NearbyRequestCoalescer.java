@@ -0,0 +1,105 @@
+package com.circlo.location.service;
+
+import com.circlo.activity.dto.ActivityDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for nearby lookups: concurrent requests whose (lat, lon,
+ * type) fall into the same quantized cell share one in-flight computation
+ * instead of each running their own query. The shared result belongs to
+ * whoever started it; callers re-measure it from their own location with
+ * {@link NearbyResults#remeasure}.
+ */
+@Component
+@Slf4j
+public class NearbyRequestCoalescer {
+
+  private final ConcurrentHashMap<String, CompletableFuture<List<ActivityDTO>>> inFlight = new ConcurrentHashMap<>();
+
+  private final Counter requests;
+  private final Counter merged;
+
+  @Value("${app.location.coalescing.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.location.coalescing.cell-size-degrees:0.0005}")
+  private double cellSizeDegrees;
+
+  public NearbyRequestCoalescer(MeterRegistry meterRegistry) {
+    this.requests = Counter.builder("circlo.nearby.coalescer.requests")
+        .description("Nearby lookups routed through the coalescer")
+        .register(meterRegistry);
+    this.merged = Counter.builder("circlo.nearby.coalescer.merged")
+        .description("Nearby lookups served by another request's in-flight computation")
+        .register(meterRegistry);
+    Gauge.builder("circlo.nearby.coalescer.in-flight", inFlight, ConcurrentHashMap::size)
+        .description("Distinct nearby computations currently running")
+        .register(meterRegistry);
+  }
+
+  public List<ActivityDTO> execute(double latitude, double longitude, String type,
+      Supplier<List<ActivityDTO>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    requests.increment();
+    String key = key(latitude, longitude, type);
+    CompletableFuture<List<ActivityDTO>> own = new CompletableFuture<>();
+    CompletableFuture<List<ActivityDTO>> existing = inFlight.putIfAbsent(key, own);
+
+    if (existing != null) {
+      merged.increment();
+      return await(existing);
+    }
+
+    try {
+      List<ActivityDTO> result = loader.get();
+      own.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  /**
+   * How far the loader has to widen its radius so its result covers every
+   * request sharing the computation.
+   */
+  public double paddingKm() {
+    return enabled ? NearbyResults.paddingKm(cellSizeDegrees) : 0.0;
+  }
+
+  private List<ActivityDTO> await(CompletableFuture<List<ActivityDTO>> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private String key(double latitude, double longitude, String type) {
+    return Math.round(latitude / cellSizeDegrees) + ":"
+        + Math.round(longitude / cellSizeDegrees) + ":"
+        + (type != null && !type.isEmpty() ? type.toUpperCase(Locale.ROOT) : "ALL");
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.circlo.location.service;
+
+import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.location.util.GeoDistanceKernel;
+import com.circlo.location.util.GeoUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public final class NearbyResults {
+
+  private NearbyResults() {
+    // Utility class
+  }
+
+  /**
+   * Copies a nearby result computed for a nearby point, with distances and
+   * ordering re-measured from the caller's own location and only the
+   * activities within the caller's radius kept. The shared result has to
+   * have been computed with a radius padded by the distance between the two
+   * points, see {@link #paddingKm}, or it may miss some of them.
+   */
+  public static List<ActivityDTO> remeasure(List<ActivityDTO> activities, double latitude, double longitude,
+      double radiusKm) {
+    GeoDistanceKernel kernel = GeoDistanceKernel.around(latitude, longitude, radiusKm);
+    return activities.stream()
+        .map(activity -> activity.toBuilder()
+            .distance(kernel.haversine(activity.getLatitude(), activity.getLongitude()))
+            .build())
+        .filter(activity -> activity.getDistance() <= radiusKm)
+        .sorted(Comparator.comparingDouble(ActivityDTO::getDistance)
+            .thenComparingLong(ActivityDTO::getId))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Upper bound on the distance between two points that quantize to the
+   * same cell of the given size: its diagonal, measured at the equator.
+   */
+  public static double paddingKm(double cellSizeDegrees) {
+    return cellSizeDegrees * GeoUtils.KM_PER_DEGREE_LAT * Math.sqrt(2.0);
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.circlo.location.util;
+
+/**
+ * Distance evaluation against one fixed origin and radius, on primitive
+ * lat/lon only. The origin's trigonometry is computed once, points well
+ * inside or outside the radius are decided with an equirectangular
+ * approximation, and only points near the boundary pay for an exact
+ * haversine.
+ */
+public final class GeoDistanceKernel {
+
+  // Beyond these the equirectangular error is no longer comfortably inside the band
+  private static final double MAX_FAST_PATH_RADIUS_KM = 50.0;
+  private static final double MAX_FAST_PATH_LATITUDE = 70.0;
+  private static final double BOUNDARY_BAND = 0.02;
+
+  private final double originLat;
+  private final double originLon;
+  private final double cosOriginLat;
+  private final double radiusKm;
+  private final boolean fastPath;
+  private final double innerSquared;
+  private final double outerSquared;
+
+  private GeoDistanceKernel(double originLat, double originLon, double radiusKm) {
+    this.originLat = originLat;
+    this.originLon = originLon;
+    this.cosOriginLat = Math.cos(Math.toRadians(originLat));
+    this.radiusKm = radiusKm;
+    this.fastPath = radiusKm <= MAX_FAST_PATH_RADIUS_KM && Math.abs(originLat) <= MAX_FAST_PATH_LATITUDE;
+    double inner = radiusKm * (1 - BOUNDARY_BAND);
+    double outer = radiusKm * (1 + BOUNDARY_BAND);
+    this.innerSquared = inner * inner;
+    this.outerSquared = outer * outer;
+  }
+
+  public static GeoDistanceKernel around(double latitude, double longitude, double radiusKm) {
+    return new GeoDistanceKernel(latitude, longitude, radiusKm);
+  }
+
+  /**
+   * Distance in kilometers if the point is within the radius, otherwise a
+   * negative value.
+   */
+  public double distanceWithin(double latitude, double longitude) {
+    if (fastPath) {
+      double squared = equirectangularSquared(latitude, longitude);
+      if (squared <= innerSquared) {
+        return Math.sqrt(squared);
+      }
+      if (squared > outerSquared) {
+        return -1.0;
+      }
+    }
+
+    double distance = haversine(latitude, longitude);
+    return distance <= radiusKm ? distance : -1.0;
+  }
+
+  public double haversine(double latitude, double longitude) {
+    double sinHalfLat = Math.sin(Math.toRadians(latitude - originLat) / 2);
+    double sinHalfLon = Math.sin(Math.toRadians(longitude - originLon) / 2);
+    double a = sinHalfLat * sinHalfLat
+        + cosOriginLat * Math.cos(Math.toRadians(latitude)) * sinHalfLon * sinHalfLon;
+    return 2 * GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+  }
+
+  public double getRadiusKm() {
+    return radiusKm;
+  }
+
+  private double equirectangularSquared(double latitude, double longitude) {
+    double dLon = longitude - originLon;
+    if (dLon > 180.0) {
+      dLon -= 360.0;
+    } else if (dLon < -180.0) {
+      dLon += 360.0;
+    }
+    double x = Math.toRadians(dLon) * cosOriginLat * GeoUtils.EARTH_RADIUS_KM;
+    double y = Math.toRadians(latitude - originLat) * GeoUtils.EARTH_RADIUS_KM;
+    return x * x + y * y;
+  }
+
+}
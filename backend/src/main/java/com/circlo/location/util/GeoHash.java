@@ -0,0 +1,96 @@
+package com.circlo.location.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Base32 geohash encoding. A geohash names a lat/lon cell, and every
+ * prefix of it names the enclosing cell, so regions can be mapped by
+ * prefix.
+ */
+public final class GeoHash {
+
+  private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+  private GeoHash() {
+    // Utility class
+  }
+
+  public static String encode(double latitude, double longitude, int precision) {
+    double minLat = -90.0;
+    double maxLat = 90.0;
+    double minLon = -180.0;
+    double maxLon = 180.0;
+
+    char[] hash = new char[precision];
+    boolean evenBit = true;
+    int bit = 0;
+    int value = 0;
+    int length = 0;
+    while (length < precision) {
+      if (evenBit) {
+        double mid = (minLon + maxLon) / 2;
+        if (longitude >= mid) {
+          value = (value << 1) | 1;
+          minLon = mid;
+        } else {
+          value <<= 1;
+          maxLon = mid;
+        }
+      } else {
+        double mid = (minLat + maxLat) / 2;
+        if (latitude >= mid) {
+          value = (value << 1) | 1;
+          minLat = mid;
+        } else {
+          value <<= 1;
+          maxLat = mid;
+        }
+      }
+      evenBit = !evenBit;
+
+      if (++bit == 5) {
+        hash[length++] = BASE32[value];
+        bit = 0;
+        value = 0;
+      }
+    }
+    return new String(hash);
+  }
+
+  /**
+   * Geohashes of the given precision covering the box, or null if that
+   * would take more than {@code maxCells} cells.
+   */
+  public static Set<String> covering(double minLat, double minLon, double maxLat, double maxLon,
+      int precision, int maxCells) {
+    int lonBits = (5 * precision + 1) / 2;
+    int latBits = 5 * precision / 2;
+    double cellWidth = 360.0 / (1L << lonBits);
+    double cellHeight = 180.0 / (1L << latBits);
+
+    double south = Math.max(-90.0, minLat);
+    double north = Math.min(90.0, maxLat);
+    long rows = (long) Math.floor(north / cellHeight) - (long) Math.floor(south / cellHeight) + 1;
+    long columns = (long) Math.floor(maxLon / cellWidth) - (long) Math.floor(minLon / cellWidth) + 1;
+    if (rows * columns > maxCells) {
+      return null;
+    }
+
+    // Sample one point per cell, starting on the box's own edges
+    Set<String> cells = new LinkedHashSet<>();
+    for (long row = 0; row < rows; row++) {
+      double latitude = Math.min(north, south + row * cellHeight);
+      for (long column = 0; column < columns; column++) {
+        double longitude = Math.min(maxLon, minLon + column * cellWidth);
+        cells.add(encode(latitude, normalizeLongitude(longitude), precision));
+      }
+    }
+    return cells;
+  }
+
+  private static double normalizeLongitude(double longitude) {
+    return ((longitude + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.circlo.location.util;
+
+import java.util.List;
+import java.util.Locale;
+
+public final class GeoUtils {
+
+  public static final double EARTH_RADIUS_KM = 6371.0;
+  // Same sphere as the haversine, so a bounding box always contains its circle
+  public static final double KM_PER_DEGREE_LAT = EARTH_RADIUS_KM * Math.PI / 180.0;
+
+  private GeoUtils() {
+    // Utility class
+  }
+
+  public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double dLat = phi2 - phi1;
+    double dLon = Math.toRadians(lon2 - lon1);
+
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+        Math.cos(phi1) * Math.cos(phi2) *
+            Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    return EARTH_RADIUS_KM * c;
+  }
+
+  public static double latDeltaDegrees(double radiusKm) {
+    return radiusKm / KM_PER_DEGREE_LAT;
+  }
+
+  /**
+   * Half the longitude span of the circle: asin(sin(r / R) / cos(lat)),
+   * which is slightly wider than r / (R cos(lat)). 360 when the circle
+   * reaches a pole.
+   */
+  public static double lonDeltaDegrees(double latitude, double radiusKm) {
+    double cosLat = Math.cos(Math.toRadians(latitude));
+    double sinAngular = Math.sin(Math.min(Math.PI / 2, radiusKm / EARTH_RADIUS_KM));
+    if (cosLat < 1e-6 || sinAngular >= cosLat) {
+      return 360.0;
+    }
+    return Math.toDegrees(Math.asin(sinAngular / cosLat));
+  }
+
+  /**
+   * Long-lat WKT polygons bounding the circle around the given point. One
+   * polygon, or two when the circle crosses the antimeridian.
+   */
+  public static List<String> boundingBoxWkts(double latitude, double longitude, double radiusKm) {
+    double latDelta = latDeltaDegrees(radiusKm);
+    double lonDelta = lonDeltaDegrees(latitude, radiusKm);
+    double minLat = Math.max(-90.0, latitude - latDelta);
+    double maxLat = Math.min(90.0, latitude + latDelta);
+    if (lonDelta >= 180.0) {
+      return List.of(envelopeWkt(minLat, -180.0, maxLat, 180.0));
+    }
+    return envelopeWkts(minLat, normalizeLongitude(longitude - lonDelta), maxLat,
+        normalizeLongitude(longitude + lonDelta));
+  }
+
+  /**
+   * The envelope as WKT polygons. WKT envelopes can't wrap, so a minLon
+   * greater than maxLon (a box crossing the antimeridian) becomes two.
+   */
+  public static List<String> envelopeWkts(double minLat, double minLon, double maxLat, double maxLon) {
+    if (minLon <= maxLon) {
+      return List.of(envelopeWkt(minLat, minLon, maxLat, maxLon));
+    }
+    return List.of(envelopeWkt(minLat, minLon, maxLat, 180.0), envelopeWkt(minLat, -180.0, maxLat, maxLon));
+  }
+
+  /**
+   * Wraps a longitude that overshot by less than a full turn back into
+   * [-180, 180].
+   */
+  public static double normalizeLongitude(double longitude) {
+    if (longitude > 180.0) {
+      return longitude - 360.0;
+    }
+    return longitude < -180.0 ? longitude + 360.0 : longitude;
+  }
+
+  public static String envelopeWkt(double minLat, double minLon, double maxLat, double maxLon) {
+    return String.format(Locale.ROOT,
+        "POLYGON((%1$.7f %2$.7f, %3$.7f %2$.7f, %3$.7f %4$.7f, %1$.7f %4$.7f, %1$.7f %2$.7f))",
+        minLon, minLat, maxLon, maxLat);
+  }
+
+}
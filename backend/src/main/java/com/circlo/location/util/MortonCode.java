@@ -0,0 +1,93 @@
+package com.circlo.location.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Z-order (Morton) keys for lat/lon. Each axis is quantized to 31 bits and
+ * the bits are interleaved, so keys are non-negative and points close on the
+ * map mostly get close keys. Any aligned square block of the quantized grid
+ * is one contiguous key range, which is what turns a bounding box into a
+ * few range scans.
+ */
+public final class MortonCode {
+
+  private static final int BITS = 31;
+  private static final long MAX_CELL = (1L << BITS) - 1;
+
+  private MortonCode() {
+    // Utility class
+  }
+
+  public static long encode(double latitude, double longitude) {
+    return interleave(quantizeLongitude(longitude), quantizeLatitude(latitude));
+  }
+
+  /**
+   * Key ranges, as inclusive {start, end} pairs in ascending order, that
+   * together cover the box using at most about maxCells aligned blocks. The
+   * ranges may include keys outside the box, so callers still filter on the
+   * exact coordinates.
+   */
+  public static List<long[]> ranges(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+    long minX = quantizeLongitude(minLon);
+    long maxX = quantizeLongitude(maxLon);
+    long minY = quantizeLatitude(minLat);
+    long maxY = quantizeLatitude(maxLat);
+
+    // Coarsen the blocks until the box spans few enough of them
+    int shift = 0;
+    while (shift < BITS
+        && ((maxX >> shift) - (minX >> shift) + 1) * ((maxY >> shift) - (minY >> shift) + 1) > maxCells) {
+      shift++;
+    }
+
+    List<long[]> ranges = new ArrayList<>();
+    long blockKeys = (1L << (2 * shift)) - 1;
+    for (long y = minY >> shift; y <= maxY >> shift; y++) {
+      for (long x = minX >> shift; x <= maxX >> shift; x++) {
+        long start = interleave(x << shift, y << shift);
+        ranges.add(new long[]{start, start | blockKeys});
+      }
+    }
+
+    ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+    List<long[]> merged = new ArrayList<>(ranges.size());
+    for (long[] range : ranges) {
+      long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+      if (last != null && range[0] <= last[1] + 1) {
+        last[1] = Math.max(last[1], range[1]);
+      } else {
+        merged.add(range);
+      }
+    }
+    return merged;
+  }
+
+  static long quantizeLatitude(double latitude) {
+    return quantize((latitude + 90.0) / 180.0);
+  }
+
+  static long quantizeLongitude(double longitude) {
+    return quantize((longitude + 180.0) / 360.0);
+  }
+
+  private static long quantize(double fraction) {
+    return Math.max(0, Math.min(MAX_CELL, (long) Math.floor(fraction * (1L << BITS))));
+  }
+
+  private static long interleave(long x, long y) {
+    return spread(x) | (spread(y) << 1);
+  }
+
+  private static long spread(long value) {
+    long v = value & 0xFFFFFFFFL;
+    v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+    v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+    v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+    v = (v | (v << 2)) & 0x3333333333333333L;
+    v = (v | (v << 1)) & 0x5555555555555555L;
+    return v;
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.circlo.location.util;
+
+/**
+ * Web-mercator (slippy map) tile arithmetic. Tiles are identified by their
+ * quadkey, which encodes zoom, x and y in one string and shares its prefix
+ * with every ancestor tile.
+ */
+public final class TileMath {
+
+  public static final double MAX_LATITUDE = 85.05112878;
+
+  private TileMath() {
+    // Utility class
+  }
+
+  public static int tileX(double longitude, int zoom) {
+    int n = 1 << zoom;
+    int x = (int) Math.floor((longitude + 180.0) / 360.0 * n);
+    return Math.min(Math.max(x, 0), n - 1);
+  }
+
+  /**
+   * Tile columns covering westLongitude to eastLongitude, west to east. A
+   * west edge greater than the east edge is a viewport crossing the
+   * antimeridian, whose columns wrap around from the last to the first.
+   */
+  public static int[] tileXs(double westLongitude, double eastLongitude, int zoom) {
+    int n = 1 << zoom;
+    int minX = tileX(westLongitude, zoom);
+    int maxX = tileX(eastLongitude, zoom);
+    int count = westLongitude <= eastLongitude ? maxX - minX + 1 : Math.min(n, maxX - minX + n + 1);
+    int[] xs = new int[Math.max(count, 0)];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = (minX + i) % n;
+    }
+    return xs;
+  }
+
+  public static int tileY(double latitude, int zoom) {
+    int n = 1 << zoom;
+    double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+    int y = (int) Math.floor((1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * n);
+    return Math.min(Math.max(y, 0), n - 1);
+  }
+
+  public static String quadkey(int x, int y, int zoom) {
+    char[] key = new char[zoom];
+    for (int i = zoom; i > 0; i--) {
+      int mask = 1 << (i - 1);
+      int digit = 0;
+      if ((x & mask) != 0) {
+        digit += 1;
+      }
+      if ((y & mask) != 0) {
+        digit += 2;
+      }
+      key[zoom - i] = (char) ('0' + digit);
+    }
+    return new String(key);
+  }
+
+  public static String quadkey(double latitude, double longitude, int zoom) {
+    return quadkey(tileX(longitude, zoom), tileY(latitude, zoom), zoom);
+  }
+
+  public static double tileWestLongitude(int x, int zoom) {
+    return x / (double) (1 << zoom) * 360.0 - 180.0;
+  }
+
+  public static double tileNorthLatitude(int y, int zoom) {
+    double n = Math.PI - 2.0 * Math.PI * y / (1 << zoom);
+    return Math.toDegrees(Math.atan(Math.sinh(n)));
+  }
+
+}
@@ -2,6 +2,8 @@ package com.circlo.notification.service;
 
 import com.circlo.auth.entity.User;
 import com.circlo.auth.repository.UserRepository;
+import com.circlo.common.datasource.ShardContext;
+import com.circlo.common.datasource.ShardMap;
 import com.circlo.notification.dto.NotificationDTO;
 import com.circlo.notification.entity.Notification;
 import com.circlo.notification.entity.NotificationType;
@@ -9,10 +11,14 @@ import com.circlo.notification.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,8 +27,14 @@ import java.util.stream.Collectors;
 @Slf4j
 public class NotificationService {
 
+  private static final Comparator<NotificationDTO> NEWEST_FIRST = Comparator
+      .comparing(NotificationDTO::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+      .thenComparing(NotificationDTO::getId, Comparator.reverseOrder());
+
   private final NotificationRepository notificationRepository;
   private final UserRepository userRepository;
+  private final ShardMap shardMap;
+  private final TransactionTemplate transactionTemplate;
 
   @Transactional
   public Notification createNotification(Long userId, String title, String message,
@@ -45,28 +57,55 @@ public class NotificationService {
     return saved;
   }
 
+  @Transactional(readOnly = true)
   public Page<NotificationDTO> getUserNotifications(Long userId, int page, int size) {
-    Page<Notification> notifications = notificationRepository
-        .findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(page, size));
+    if (!shardMap.isEnabled()) {
+      Page<Notification> notifications = notificationRepository
+          .findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(page, size));
+
+      return notifications.map(this::convertToDTO);
+    }
+
+    // Notifications are stored with the activity they are about, so each
+    // shard contributes its newest (page + 1) * size and the merge is sliced
+    List<NotificationDTO> merged = new ArrayList<>();
+    long total = 0;
+    for (String shard : shardMap.allShards()) {
+      Page<NotificationDTO> shardPage = shardMap.readFromShard(shard, () -> notificationRepository
+          .findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, (page + 1) * size))
+          .map(this::convertToDTO));
+      merged.addAll(shardPage.getContent());
+      total += shardPage.getTotalElements();
+    }
+    merged.sort(NEWEST_FIRST);
 
-    return notifications.map(this::convertToDTO);
+    int from = Math.min(page * size, merged.size());
+    int to = Math.min(from + size, merged.size());
+    return new PageImpl<>(merged.subList(from, to), PageRequest.of(page, size), total);
   }
 
+  @Transactional(readOnly = true)
   public List<NotificationDTO> getUnreadNotifications(Long userId) {
-    List<Notification> unreadNotifications = notificationRepository
-        .findByUserIdAndIsReadFalse(userId);
-
-    return unreadNotifications.stream()
-        .map(this::convertToDTO)
+    return shardMap.allShards().stream()
+        .flatMap(shard -> shardMap.readFromShard(shard, () -> notificationRepository
+            .findByUserIdAndIsReadFalse(userId).stream()
+            .map(this::convertToDTO)
+            .collect(Collectors.toList())).stream())
+        .sorted(NEWEST_FIRST)
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
   public Long getUnreadCount(Long userId) {
-    return notificationRepository.countByUserIdAndIsReadFalse(userId);
+    return shardMap.allShards().stream()
+        .mapToLong(shard -> shardMap.readFromShard(shard,
+            () -> notificationRepository.countByUserIdAndIsReadFalse(userId)))
+        .sum();
   }
 
   @Transactional
   public void markAsRead(Long notificationId, Long userId) {
+    ShardContext.bindToTransaction(shardMap.shardForId(notificationId));
     Notification notification = notificationRepository.findById(notificationId)
         .orElseThrow(() -> new IllegalArgumentException("Notification not found"));
 
@@ -79,13 +118,17 @@ public class NotificationService {
     log.info("Marked notification {} as read", notificationId);
   }
 
-  @Transactional
   public void markAllAsRead(Long userId) {
-    List<Notification> unreadNotifications = notificationRepository
-        .findByUserIdAndIsReadFalse(userId);
-
-    unreadNotifications.forEach(n -> n.setIsRead(true));
-    notificationRepository.saveAll(unreadNotifications);
+    for (String shard : shardMap.allShards()) {
+      shardMap.withShard(shard, () -> transactionTemplate.execute(status -> {
+        List<Notification> unreadNotifications = notificationRepository
+            .findByUserIdAndIsReadFalse(userId);
+
+        unreadNotifications.forEach(n -> n.setIsRead(true));
+        notificationRepository.saveAll(unreadNotifications);
+        return null;
+      }));
+    }
     log.info("Marked all notifications as read for user {}", userId);
   }
 
@@ -3,6 +3,7 @@ package com.circlo.user.service;
 import com.circlo.auth.dto.UserDTO;
 import com.circlo.auth.entity.User;
 import com.circlo.auth.repository.UserRepository;
+import com.circlo.auth.service.UserShardReplicator;
 import com.circlo.user.dto.UpdateProfileRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
   private final UserRepository userRepository;
+  private final UserShardReplicator userShardReplicator;
 
   public UserDTO getUserProfile(Long userId) {
     User user = userRepository.findById(userId)
@@ -42,6 +44,7 @@ public class UserService {
     }
 
     user = userRepository.save(user);
+    userShardReplicator.propagateProfile(user);
     log.info("Profile updated for user: {}", userId);
 
     return convertToDTO(user);
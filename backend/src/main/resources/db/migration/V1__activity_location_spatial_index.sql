@@ -0,0 +1,30 @@
+-- Restricts activities.location to SRID 4326 and gives it a SPATIAL index,
+-- which JPA can't declare. Run once against every database (each shard when
+-- app.sharding is enabled) after Hibernate has created the schema. Safe to
+-- re-run: every step checks whether it is still needed.
+
+-- Databases created before the spatial query have a plain index of this name
+SET @plain_index = (SELECT COUNT(*) FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities'
+      AND INDEX_NAME = 'idx_activity_location' AND INDEX_TYPE <> 'SPATIAL');
+SET @ddl = IF(@plain_index > 0, 'DROP INDEX idx_activity_location ON activities', 'DO 0');
+PREPARE step FROM @ddl;
+EXECUTE step;
+DEALLOCATE PREPARE step;
+
+SET @srid = (SELECT SRS_ID FROM information_schema.ST_GEOMETRY_COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities' AND COLUMN_NAME = 'location');
+SET @ddl = IF(@srid IS NULL OR @srid <> 4326,
+    'ALTER TABLE activities MODIFY location POINT NOT NULL SRID 4326', 'DO 0');
+PREPARE step FROM @ddl;
+EXECUTE step;
+DEALLOCATE PREPARE step;
+
+SET @spatial_index = (SELECT COUNT(*) FROM information_schema.STATISTICS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities'
+      AND INDEX_NAME = 'idx_activity_location' AND INDEX_TYPE = 'SPATIAL');
+SET @ddl = IF(@spatial_index = 0,
+    'CREATE SPATIAL INDEX idx_activity_location ON activities (location)', 'DO 0');
+PREPARE step FROM @ddl;
+EXECUTE step;
+DEALLOCATE PREPARE step;
@@ -0,0 +1,213 @@
+package com.circlo.activity.config;
+
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.location.util.GeoUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migration and the nearby queries against a real MySQL 8 and
+ * checks that EXPLAIN picks the SPATIAL index, then times the nearby query
+ * against the one it replaced. Skipped unless CIRCLO_TEST_MYSQL_URL points
+ * at a scratch database, whose name must contain "test": the activities
+ * table there is dropped and reseeded.
+ *
+ * <pre>
+ * CIRCLO_TEST_MYSQL_URL=jdbc:mysql://localhost:3306/circlo_test CIRCLO_TEST_MYSQL_USER=root \
+ *     CIRCLO_TEST_MYSQL_PASSWORD=secret CIRCLO_TEST_MYSQL_ROWS=1000000 \
+ *     mvn -B test -Dtest=ActivitySpatialIndexPlanTest
+ * </pre>
+ */
+@EnabledIfEnvironmentVariable(named = "CIRCLO_TEST_MYSQL_URL", matches = ".+")
+class ActivitySpatialIndexPlanTest {
+
+  private static final String INDEX_NAME = "idx_activity_location";
+  private static final String MIGRATION = "db/migration/V1__activity_location_spatial_index.sql";
+
+  // Roughly 110 x 90 km around Seoul
+  private static final double MIN_LAT = 37.0;
+  private static final double MIN_LON = 126.5;
+  private static final double SPAN_DEGREES = 1.0;
+  private static final double RADIUS_KM = 2.0;
+  private static final int TIMED_QUERIES = 200;
+
+  // The query ActivityRepository ran before the spatial index, kept as the baseline
+  private static final String FULL_SCAN_QUERY = "SELECT a.id FROM activities a " +
+      "WHERE a.status = 'OPEN' " +
+      "AND ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326)) <= :radiusMeters " +
+      "ORDER BY ST_Distance_Sphere(a.location, ST_GeomFromText(CONCAT('POINT(', :latitude, ' ', :longitude, ')'), 4326))";
+
+  private static SingleConnectionDataSource dataSource;
+  private static NamedParameterJdbcTemplate jdbc;
+
+  @BeforeAll
+  static void seed() throws IOException {
+    // One connection, so the migration's session variables carry from statement to statement
+    dataSource = new SingleConnectionDataSource(System.getenv("CIRCLO_TEST_MYSQL_URL"),
+        System.getenv("CIRCLO_TEST_MYSQL_USER"), System.getenv("CIRCLO_TEST_MYSQL_PASSWORD"), true);
+    jdbc = new NamedParameterJdbcTemplate(dataSource);
+    String database = jdbc.getJdbcTemplate().queryForObject("SELECT DATABASE()", String.class);
+    if (database == null || !database.contains("test")) {
+      throw new IllegalStateException("Refusing to drop activities in " + database + ", use a scratch test database");
+    }
+
+    // The columns and indexes the nearby queries touch, as Hibernate creates them
+    jdbc.getJdbcTemplate().execute("DROP TABLE IF EXISTS activities");
+    jdbc.getJdbcTemplate().execute("CREATE TABLE activities (" +
+        "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+        "type VARCHAR(32) NOT NULL, " +
+        "status VARCHAR(32) NOT NULL, " +
+        "location POINT NOT NULL, " +
+        "INDEX idx_activity_type (type), " +
+        "INDEX idx_activity_status (status))");
+
+    int rows = Integer.parseInt(System.getenv().getOrDefault("CIRCLO_TEST_MYSQL_ROWS", "20000"));
+    SplittableRandom random = new SplittableRandom(42);
+    String[] types = {"SPORTS", "STUDY", "DINING", "SHOPPING", "OTHER"};
+    for (int start = 0; start < rows; start += 1000) {
+      List<String> values = new ArrayList<>();
+      for (int i = start; i < Math.min(rows, start + 1000); i++) {
+        values.add(String.format("('%s', '%s', ST_SRID(POINT(%.7f, %.7f), 4326))",
+            types[random.nextInt(types.length)], random.nextInt(10) < 7 ? "OPEN" : "CLOSED",
+            MIN_LON + random.nextDouble() * SPAN_DEGREES, MIN_LAT + random.nextDouble() * SPAN_DEGREES));
+      }
+      jdbc.getJdbcTemplate().execute("INSERT INTO activities (type, status, location) VALUES " + String.join(", ", values));
+    }
+
+    runMigration();
+    jdbc.getJdbcTemplate().execute("ANALYZE TABLE activities");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    if (dataSource != null) {
+      dataSource.destroy();
+    }
+  }
+
+  @Test
+  void migrationLeavesAnSrid4326SpatialIndex() throws IOException {
+    // Re-running is a no-op
+    runMigration();
+
+    Long srid = jdbc.getJdbcTemplate().queryForObject(
+        "SELECT SRS_ID FROM information_schema.ST_GEOMETRY_COLUMNS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities' AND COLUMN_NAME = 'location'",
+        Long.class);
+    List<String> indexTypes = jdbc.getJdbcTemplate().queryForList(
+        "SELECT INDEX_TYPE FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'activities' AND INDEX_NAME = ?",
+        String.class, INDEX_NAME);
+
+    assertThat(srid).isEqualTo(4326L);
+    assertThat(indexTypes).containsExactly("SPATIAL");
+  }
+
+  @Test
+  void nearbyQueriesUseTheSpatialIndex() throws NoSuchMethodException {
+    for (String method : List.of("findNearbyActivityIds", "findNearbyActivityIdsAfter", "findActivityIdsWithin")) {
+      for (String type : Arrays.asList(null, "SPORTS")) {
+        List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + repositoryQuery(method),
+            parameters(37.5, 127.0, type));
+
+        assertThat(plan)
+            .as("%s with type %s: %s", method, type, plan)
+            .anyMatch(row -> INDEX_NAME.equals(row.get("key")));
+      }
+    }
+  }
+
+  @Test
+  void spatialQueryAgainstTheFullScanItReplaced() throws NoSuchMethodException {
+    String spatialQuery = repositoryQuery("findNearbyActivityIds");
+    SplittableRandom random = new SplittableRandom(7);
+    long[] spatialNanos = new long[TIMED_QUERIES];
+    long[] fullScanNanos = new long[TIMED_QUERIES];
+
+    for (int i = 0; i < TIMED_QUERIES; i++) {
+      // Away from the seeded area's edges, so the full radius is populated
+      double latitude = MIN_LAT + 0.1 + random.nextDouble() * (SPAN_DEGREES - 0.2);
+      double longitude = MIN_LON + 0.1 + random.nextDouble() * (SPAN_DEGREES - 0.2);
+      MapSqlParameterSource parameters = parameters(latitude, longitude, null);
+
+      long start = System.nanoTime();
+      List<Long> spatial = jdbc.queryForList(spatialQuery, parameters).stream()
+          .map(row -> ((Number) row.get("id")).longValue())
+          .collect(Collectors.toList());
+      spatialNanos[i] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      List<Long> fullScan = jdbc.queryForList(FULL_SCAN_QUERY, parameters, Long.class);
+      fullScanNanos[i] = System.nanoTime() - start;
+
+      assertThat(spatial).containsExactlyInAnyOrderElementsOf(fullScan);
+    }
+
+    long rows = jdbc.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM activities", Long.class);
+    System.out.printf("Nearby query over %,d rows, %d queries of %.1f km:%n", rows, TIMED_QUERIES, RADIUS_KM);
+    System.out.printf("  full scan (before): p50 %.2f ms, p99 %.2f ms%n",
+        percentileMillis(fullScanNanos, 0.50), percentileMillis(fullScanNanos, 0.99));
+    System.out.printf("  spatial   (after):  p50 %.2f ms, p99 %.2f ms%n",
+        percentileMillis(spatialNanos, 0.50), percentileMillis(spatialNanos, 0.99));
+    assertThat(percentileMillis(spatialNanos, 0.50)).isLessThan(percentileMillis(fullScanNanos, 0.50));
+  }
+
+  private static String repositoryQuery(String name) throws NoSuchMethodException {
+    for (Method method : ActivityRepository.class.getMethods()) {
+      if (method.getName().equals(name)) {
+        return method.getAnnotation(Query.class).value();
+      }
+    }
+    throw new NoSuchMethodException(name);
+  }
+
+  private static MapSqlParameterSource parameters(double latitude, double longitude, String type) {
+    return new MapSqlParameterSource()
+        .addValue("latitude", latitude)
+        .addValue("longitude", longitude)
+        .addValue("boundingBox", GeoUtils.boundingBoxWkts(latitude, longitude, RADIUS_KM).get(0))
+        .addValue("radiusMeters", RADIUS_KM * 1000)
+        .addValue("type", type)
+        .addValue("lastDistanceMeters", -1L)
+        .addValue("lastId", 0L)
+        .addValue("limit", 50);
+  }
+
+  private static void runMigration() throws IOException {
+    String script = new ClassPathResource(MIGRATION).getContentAsString(StandardCharsets.UTF_8);
+    String withoutComments = Arrays.stream(script.split("\n"))
+        .filter(line -> !line.trim().startsWith("--"))
+        .collect(Collectors.joining("\n"));
+    for (String statement : withoutComments.split(";")) {
+      if (!statement.isBlank()) {
+        jdbc.getJdbcTemplate().execute(statement);
+      }
+    }
+  }
+
+  private static double percentileMillis(long[] nanos, double percentile) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+  }
+
+}
@@ -0,0 +1,121 @@
+package com.circlo.activity.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+  private static final long TICK = 100;
+  private static final int WHEEL_SIZE = 8;
+  private static final int LEVELS = 3;
+
+  @Test
+  void expiresIdOnceItsDeadlinePasses() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+    wheel.schedule(1L, 500, 0);
+
+    assertThat(wheel.advance(400)).isEmpty();
+    assertThat(wheel.advance(500)).containsExactly(Map.entry(1L, 500L));
+    assertThat(wheel.advance(600)).isEmpty();
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void cascadesDeadlinesFromHigherLevels() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+    // Level 1 spans 800 ms per slot, level 2 spans 6400 ms
+    wheel.schedule(1L, 2_300, 0);
+    wheel.schedule(2L, 20_000, 0);
+
+    assertThat(wheel.advance(2_200)).isEmpty();
+    assertThat(wheel.advance(2_300)).containsOnlyKeys(1L);
+    assertThat(wheel.advance(19_900)).isEmpty();
+    assertThat(wheel.advance(20_000)).containsOnlyKeys(2L);
+  }
+
+  @Test
+  void keepsDeadlinesBeyondTheLastLevelInOverflow() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+    // All three levels together cover 51200 ms
+    wheel.schedule(1L, 120_000, 0);
+
+    assertThat(wheel.advance(119_900)).isEmpty();
+    assertThat(wheel.advance(120_000)).containsExactly(Map.entry(1L, 120_000L));
+  }
+
+  @Test
+  void pastDeadlineIsNotScheduled() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+
+    assertThat(wheel.schedule(1L, 100, 100)).isFalse();
+    assertThat(wheel.deadlineOf(1L)).isNull();
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void cancelledIdNeverExpires() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+    wheel.schedule(1L, 300, 0);
+    wheel.schedule(2L, 300, 0);
+
+    wheel.cancel(1L);
+
+    assertThat(wheel.advance(1_000)).containsOnlyKeys(2L);
+  }
+
+  @Test
+  void reschedulingMovesTheDeadline() {
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, 0);
+    wheel.schedule(1L, 300, 0);
+
+    wheel.schedule(1L, 5_000, 0);
+
+    assertThat(wheel.deadlineOf(1L)).isEqualTo(5_000L);
+    assertThat(wheel.advance(4_900)).isEmpty();
+    assertThat(wheel.advance(5_000)).containsExactly(Map.entry(1L, 5_000L));
+  }
+
+  @Test
+  void matchesAPlainDeadlineMapUnderRandomLoad() {
+    long start = 1_000_000;
+    HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, LEVELS, start);
+    Map<Long, Long> pending = new HashMap<>();
+    Set<Long> expired = new HashSet<>();
+    Random random = new Random(5);
+
+    long now = start;
+    for (int step = 0; step < 2_000; step++) {
+      long id = random.nextInt(500);
+      if (random.nextInt(5) == 0) {
+        wheel.cancel(id);
+        pending.remove(id);
+      } else {
+        long deadline = now + 1 + random.nextInt(80_000);
+        wheel.schedule(id, deadline, now);
+        pending.put(id, deadline);
+      }
+
+      now += random.nextInt(3 * (int) TICK);
+      for (Map.Entry<Long, Long> entry : wheel.advance(now).entrySet()) {
+        // Each id expires once, with the deadline it was last given, and never early
+        assertThat(pending.remove(entry.getKey())).isEqualTo(entry.getValue());
+        assertThat(entry.getValue()).isLessThanOrEqualTo(now);
+        expired.add(entry.getKey());
+      }
+      // and no later than a tick after its deadline
+      for (long deadline : pending.values()) {
+        assertThat(deadline).isGreaterThan(now - TICK);
+      }
+      assertThat(wheel.size()).isEqualTo(pending.size());
+    }
+    assertThat(expired).isNotEmpty();
+  }
+
+}
@@ -0,0 +1,150 @@
+package com.circlo.activity.snapshot;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.activity.event.ActivityChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenActivitySnapshotFileTest {
+
+  private static final LocalDateTime HIGH_WATER_MARK = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void recordsAndHighWaterMarkRoundTrip() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    List<ActivityChangedEvent> activities = List.of(
+        activity(1L, "Morning run", 37.5665, 126.9780),
+        activity(2L, "Board games, café 2층", -33.8688, 151.2093),
+        activity(3L, "", 0.0, -180.0));
+
+    write(file, activities);
+
+    assertThat(OpenActivitySnapshotFile.verify(file)).isEqualTo(HIGH_WATER_MARK);
+    List<ActivityChangedEvent> restored = new ArrayList<>();
+    assertThat(OpenActivitySnapshotFile.forEach(file, restored::add)).isEqualTo(HIGH_WATER_MARK);
+    assertThat(restored).containsExactlyElementsOf(activities);
+  }
+
+  @Test
+  void emptyImageRoundTrips() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+
+    write(file, List.of());
+
+    List<ActivityChangedEvent> restored = new ArrayList<>();
+    assertThat(OpenActivitySnapshotFile.forEach(file, restored::add)).isEqualTo(HIGH_WATER_MARK);
+    assertThat(restored).isEmpty();
+  }
+
+  @Test
+  void missingFileVerifiesAsNull() throws IOException {
+    assertThat(OpenActivitySnapshotFile.verify(directory.resolve("missing.snap"))).isNull();
+  }
+
+  @Test
+  void corruptedByteFailsTheChecksum() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    write(file, List.of(activity(1L, "Morning run", 37.5665, 126.9780)));
+    byte[] bytes = Files.readAllBytes(file);
+    // Inside the first record's latitude, past the header and tag
+    bytes[30] ^= 0x01;
+    Files.write(file, bytes);
+
+    assertThatThrownBy(() -> OpenActivitySnapshotFile.verify(file))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("checksum");
+  }
+
+  @Test
+  void truncatedFileFails() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    write(file, List.of(activity(1L, "Morning run", 37.5665, 126.9780)));
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+    assertThatThrownBy(() -> OpenActivitySnapshotFile.verify(file)).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void otherFormatIsRejected() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    Files.write(file, new byte[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+
+    assertThatThrownBy(() -> OpenActivitySnapshotFile.verify(file))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("version");
+  }
+
+  @Test
+  void closingWithoutCommitKeepsThePreviousImage() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    write(file, List.of(activity(1L, "Morning run", 37.5665, 126.9780)));
+
+    try (OpenActivitySnapshotFile.Writer writer =
+        OpenActivitySnapshotFile.Writer.open(file, HIGH_WATER_MARK.plusHours(1))) {
+      writer.append(activity(2L, "Never committed", 1.0, 1.0));
+    }
+
+    List<ActivityChangedEvent> restored = new ArrayList<>();
+    assertThat(OpenActivitySnapshotFile.forEach(file, restored::add)).isEqualTo(HIGH_WATER_MARK);
+    assertThat(restored).extracting(ActivityChangedEvent::getActivityId).containsExactly(1L);
+    assertThat(Files.exists(file.resolveSibling(file.getFileName() + ".tmp"))).isFalse();
+  }
+
+  @Test
+  void commitReplacesThePreviousImage() throws IOException {
+    Path file = directory.resolve("open-activities.snap");
+    write(file, List.of(activity(1L, "Morning run", 37.5665, 126.9780)));
+
+    try (OpenActivitySnapshotFile.Writer writer =
+        OpenActivitySnapshotFile.Writer.open(file, HIGH_WATER_MARK.plusHours(1))) {
+      writer.append(activity(2L, "Evening run", 37.5665, 126.9780));
+      writer.commit();
+      assertThat(writer.count()).isEqualTo(1);
+    }
+
+    List<ActivityChangedEvent> restored = new ArrayList<>();
+    assertThat(OpenActivitySnapshotFile.forEach(file, restored::add)).isEqualTo(HIGH_WATER_MARK.plusHours(1));
+    assertThat(restored).extracting(ActivityChangedEvent::getActivityId).containsExactly(2L);
+  }
+
+  private static void write(Path file, List<ActivityChangedEvent> activities) throws IOException {
+    try (OpenActivitySnapshotFile.Writer writer = OpenActivitySnapshotFile.Writer.open(file, HIGH_WATER_MARK)) {
+      for (ActivityChangedEvent activity : activities) {
+        writer.append(activity);
+      }
+      writer.commit();
+    }
+  }
+
+  private static ActivityChangedEvent activity(long id, String title, double latitude, double longitude) {
+    return ActivityChangedEvent.builder()
+        .activityId(id)
+        .title(title)
+        .description("Description of " + id)
+        .type(ActivityType.values()[(int) (id % ActivityType.values().length)])
+        .status(ActivityStatus.OPEN)
+        .latitude(latitude)
+        .longitude(longitude)
+        .currentMembers((int) id)
+        .maxMembers(10)
+        .scheduledDate(HIGH_WATER_MARK.plusDays(id))
+        .build();
+  }
+
+}
@@ -0,0 +1,73 @@
+package com.circlo.activity.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CountMinSketchTest {
+
+  @Test
+  void unseenKeyEstimatesZero() {
+    CountMinSketch sketch = new CountMinSketch(4, 1024);
+
+    assertThat(sketch.estimate(42L)).isZero();
+  }
+
+  @Test
+  void singleKeyIsCountedExactly() {
+    CountMinSketch sketch = new CountMinSketch(4, 1024);
+    sketch.add(42L, 3);
+    sketch.add(42L, 2);
+
+    assertThat(sketch.estimate(42L)).isEqualTo(5);
+  }
+
+  @Test
+  void estimatesNeverUndercountAndStayClose() {
+    CountMinSketch sketch = new CountMinSketch(4, 1024);
+    Map<Long, Integer> actual = new HashMap<>();
+    Random random = new Random(3);
+    int total = 0;
+    for (int i = 0; i < 20_000; i++) {
+      // Skewed keys, a few hot ones and a long tail
+      long key = random.nextInt(10) < 7 ? random.nextInt(20) : random.nextInt(5_000);
+      sketch.add(key, 1);
+      actual.merge(key, 1, Integer::sum);
+      total++;
+    }
+
+    for (Map.Entry<Long, Integer> entry : actual.entrySet()) {
+      int estimate = sketch.estimate(entry.getKey());
+      assertThat(estimate).isGreaterThanOrEqualTo(entry.getValue());
+      // The usual bound is about e / width of the total; allow twice that
+      assertThat(estimate - entry.getValue()).isLessThanOrEqualTo(total * 3 / 1024 * 2);
+    }
+  }
+
+  @Test
+  void clearResetsEveryCounter() {
+    CountMinSketch sketch = new CountMinSketch(2, 64);
+    for (long key = 0; key < 500; key++) {
+      sketch.add(key, 1);
+    }
+
+    sketch.clear();
+
+    for (long key = 0; key < 500; key++) {
+      assertThat(sketch.estimate(key)).isZero();
+    }
+  }
+
+  @Test
+  void rejectsInvalidDimensions() {
+    assertThatThrownBy(() -> new CountMinSketch(0, 64)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new CountMinSketch(9, 64)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new CountMinSketch(4, 100)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+}
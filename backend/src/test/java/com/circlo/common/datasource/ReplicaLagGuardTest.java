@@ -0,0 +1,112 @@
+package com.circlo.common.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaLagGuardTest {
+
+  private static final long MAX_LAG_MILLIS = 5_000;
+
+  @Test
+  void usesReplicaWithinTheLagLimit() throws SQLException {
+    ReplicaLagGuard guard = guard(replicaStatus(2L));
+
+    guard.checkLag();
+
+    assertThat(guard.canUseReplica()).isTrue();
+  }
+
+  @Test
+  void skipsReplicaBeyondTheLagLimit() throws SQLException {
+    ReplicaLagGuard guard = guard(replicaStatus(30L));
+
+    guard.checkLag();
+
+    assertThat(guard.canUseReplica()).isFalse();
+  }
+
+  @Test
+  void skipsReplicaWhenReplicationIsStopped() throws SQLException {
+    ReplicaLagGuard guard = guard(replicaStatus(null));
+
+    guard.checkLag();
+
+    assertThat(guard.canUseReplica()).isFalse();
+  }
+
+  @Test
+  void skipsReplicaWhenStatusIsNotUnderstood() throws SQLException {
+    ReplicaLagGuard guard = guard(failing(
+        new SQLSyntaxErrorException("You have an error in your SQL syntax", "42000", 1064)));
+
+    guard.checkLag();
+
+    assertThat(guard.canUseReplica()).isFalse();
+  }
+
+  @Test
+  void skipsReplicaWhenUnreachable() throws SQLException {
+    ReplicaLagGuard guard = guard(failing(new SQLTransientConnectionException("Connection refused")));
+
+    guard.checkLag();
+
+    assertThat(guard.canUseReplica()).isFalse();
+  }
+
+  @Test
+  void skipsReplicaBeforeTheFirstCheck() throws SQLException {
+    assertThat(guard(replicaStatus(0L)).canUseReplica()).isFalse();
+  }
+
+  private static ReplicaLagGuard guard(DataSource replica) {
+    return new ReplicaLagGuard(replica, new SimpleMeterRegistry(), MAX_LAG_MILLIS, 2_000);
+  }
+
+  private static DataSource replicaStatus(Long secondsBehindSource) throws SQLException {
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(1);
+    when(metaData.getColumnLabel(1)).thenReturn("Seconds_Behind_Source");
+    when(metaData.getColumnName(1)).thenReturn("Seconds_Behind_Source");
+
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getObject(1)).thenReturn(secondsBehindSource);
+
+    Statement statement = mock(Statement.class);
+    when(statement.executeQuery(anyString())).thenReturn(resultSet);
+    return dataSource(statement);
+  }
+
+  private static DataSource failing(SQLException failure) throws SQLException {
+    Statement statement = mock(Statement.class);
+    when(statement.executeQuery(anyString())).thenThrow(failure);
+    return dataSource(statement);
+  }
+
+  private static DataSource dataSource(Statement statement) throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(connection.createStatement(anyInt(), anyInt())).thenReturn(statement);
+
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    return dataSource;
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.circlo.common.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ShardMapTest {
+
+  private ShardingProperties properties;
+  private ShardMap shardMap;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ShardingProperties();
+    properties.setEnabled(true);
+    properties.setDefaultShard("us");
+    // wy covers Korea, xn Japan; everything else falls back to us
+    properties.setRegions(Map.of("wy", "kr", "xn", "jp"));
+    properties.setShards(Map.of(
+        "jp", shard(1),
+        "us", shard(2),
+        "kr", shard(0)));
+    shardMap = new ShardMap(properties, mock(PlatformTransactionManager.class));
+  }
+
+  @Test
+  void routesLocationsByLongestRegionPrefix() {
+    assertThat(shardMap.shardFor(37.5665, 126.9780)).isEqualTo("kr");
+    assertThat(shardMap.shardFor(35.6762, 139.6503)).isEqualTo("jp");
+    assertThat(shardMap.shardFor(40.7128, -74.0060)).isEqualTo("us");
+  }
+
+  @Test
+  void longerPrefixWinsOverShorterOne() {
+    properties.setRegions(Map.of("w", "kr", "wy", "jp"));
+
+    assertThat(shardMap.shardFor(37.5665, 126.9780)).isEqualTo("jp");
+    assertThat(shardMap.shardFor(13.7563, 100.5018)).isEqualTo("kr");
+  }
+
+  @Test
+  void routesIdsByAutoIncrementOffset() {
+    assertThat(shardMap.shardForId(1)).isEqualTo("kr");
+    assertThat(shardMap.shardForId(2)).isEqualTo("jp");
+    assertThat(shardMap.shardForId(3)).isEqualTo("us");
+    assertThat(shardMap.shardForId(4)).isEqualTo("kr");
+    assertThat(shardMap.shardForId(3_000_000_002L)).isEqualTo("jp");
+  }
+
+  @Test
+  void listsShardsInIndexOrder() {
+    assertThat(shardMap.allShards()).containsExactly("kr", "jp", "us");
+    assertThat(shardMap.homeShard()).isEqualTo("us");
+  }
+
+  @Test
+  void radiusSearchInsideOneRegionStaysOnItsShard() {
+    assertThat(shardMap.shardsFor(37.5665, 126.9780, 2.0)).containsExactly("kr");
+  }
+
+  @Test
+  void radiusSearchAcrossRegionBoundaryFansOut() {
+    // wy and xn meet at 135 degrees east
+    assertThat(shardMap.shardsFor(36.0, 134.99, 10.0)).containsExactlyInAnyOrder("kr", "jp");
+  }
+
+  @Test
+  void viewportAcrossAntimeridianCoversBothSides() {
+    properties.setRegions(Map.of("r", "jp", "2", "kr"));
+
+    // South of the equator r ends at 180 degrees and 2 starts at -180
+    assertThat(shardMap.shardsWithin(-1.0, 179.0, -0.5, -179.0)).containsExactlyInAnyOrder("jp", "kr");
+  }
+
+  @Test
+  void hugeBoxFansOutToEveryShard() {
+    assertThat(shardMap.shardsWithin(-80.0, -170.0, 80.0, 170.0)).containsExactly("kr", "jp", "us");
+  }
+
+  @Test
+  void disabledShardingRoutesToTheSingleDatabase() {
+    properties.setEnabled(false);
+
+    assertThat(shardMap.shardFor(37.5665, 126.9780)).isNull();
+    assertThat(shardMap.shardForId(2)).isNull();
+    assertThat(shardMap.allShards()).containsExactly((String) null);
+    assertThat(shardMap.shardsFor(37.5665, 126.9780, 2.0)).containsExactly((String) null);
+    assertThat(shardMap.homeShard()).isNull();
+  }
+
+  private static ShardingProperties.Shard shard(int index) {
+    ShardingProperties.Shard shard = new ShardingProperties.Shard();
+    shard.setIndex(index);
+    return shard;
+  }
+
+}
@@ -0,0 +1,121 @@
+package com.circlo.location.cache;
+
+import com.circlo.activity.dto.ActivityDTO;
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.event.ActivityChangedEvent;
+import com.circlo.activity.pipeline.ActivitySideEffectPipeline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NearbyResponseCacheTest {
+
+  private static final double LATITUDE = 37.5665;
+  private static final double LONGITUDE = 126.9780;
+  private static final double RADIUS_KM = 5.0;
+
+  private final Map<String, String> redis = new HashMap<>();
+  private NearbyResponseCache cache;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    ValueOperations<String, String> values = mock(ValueOperations.class);
+    when(values.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+    doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(values).set(anyString(), anyString(), any(Duration.class));
+    when(values.increment(anyString())).thenAnswer(invocation -> {
+      String key = invocation.getArgument(0);
+      long next = Long.parseLong(redis.getOrDefault(key, "0")) + 1;
+      redis.put(key, Long.toString(next));
+      return next;
+    });
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+
+    // Side effects run inline so a change is visible as soon as it is published
+    ActivitySideEffectPipeline pipeline = mock(ActivitySideEffectPipeline.class);
+    doAnswer(invocation -> {
+      invocation.<Runnable>getArgument(2).run();
+      return null;
+    }).when(pipeline).submit(anyString(), anyLong(), any(Runnable.class));
+
+    cache = new NearbyResponseCache(redisTemplate, new ObjectMapper().findAndRegisterModules(), pipeline);
+    ReflectionTestUtils.setField(cache, "enabled", true);
+    ReflectionTestUtils.setField(cache, "quantizationDegrees", 0.001);
+    ReflectionTestUtils.setField(cache, "cacheDurationMinutes", 5L);
+  }
+
+  @Test
+  void storedResultIsServedToTheSameCell() {
+    NearbyResponseCache.Lookup miss = cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null);
+    cache.put(miss, LATITUDE, LONGITUDE, RADIUS_KM, null, List.of(activity(1L)));
+
+    NearbyResponseCache.Lookup hit = cache.get(LATITUDE + 0.0001, LONGITUDE, RADIUS_KM, null);
+
+    assertThat(miss.isHit()).isFalse();
+    assertThat(hit.isHit()).isTrue();
+    assertThat(hit.activities()).extracting(ActivityDTO::getId).containsExactly(1L);
+  }
+
+  @Test
+  void changeInvalidatesStoredResults() {
+    NearbyResponseCache.Lookup miss = cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null);
+    cache.put(miss, LATITUDE, LONGITUDE, RADIUS_KM, null, List.of(activity(1L)));
+
+    cache.onActivityChanged(change(2L));
+
+    assertThat(cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null).isHit()).isFalse();
+  }
+
+  @Test
+  void resultComputedAcrossAChangeIsNotServed() {
+    NearbyResponseCache.Lookup miss = cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null);
+    // Activity 2 opens while the miss is being computed without it
+    cache.onActivityChanged(change(2L));
+    cache.put(miss, LATITUDE, LONGITUDE, RADIUS_KM, null, List.of(activity(1L)));
+
+    assertThat(cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null).isHit()).isFalse();
+  }
+
+  @Test
+  void disabledCacheNeverHits() {
+    ReflectionTestUtils.setField(cache, "enabled", false);
+
+    NearbyResponseCache.Lookup miss = cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null);
+    cache.put(miss, LATITUDE, LONGITUDE, RADIUS_KM, null, List.of(activity(1L)));
+
+    assertThat(cache.get(LATITUDE, LONGITUDE, RADIUS_KM, null).isHit()).isFalse();
+    assertThat(redis).isEmpty();
+  }
+
+  private static ActivityDTO activity(long id) {
+    return ActivityDTO.builder().id(id).latitude(LATITUDE).longitude(LONGITUDE).build();
+  }
+
+  private static ActivityChangedEvent change(long id) {
+    return ActivityChangedEvent.builder()
+        .activityId(id)
+        .status(ActivityStatus.OPEN)
+        .latitude(LATITUDE)
+        .longitude(LONGITUDE)
+        .build();
+  }
+
+}
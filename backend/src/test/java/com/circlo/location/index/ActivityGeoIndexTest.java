@@ -0,0 +1,67 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityGeoIndexTest {
+
+  private final ActivityGeoIndex index = new ActivityGeoIndex(0.02);
+
+  @Test
+  void findNearestNearThePolesMatchesTheRadiusScan() {
+    for (double latitude : new double[]{85.0, -85.0, 89.5, -89.95}) {
+      index.clear();
+      Random random = new Random(11);
+      for (long id = 1; id <= 2_000; id++) {
+        // Every longitude, a few degrees of latitude either side, folded back over the pole
+        double lat = latitude + (random.nextDouble() - 0.5) * 4.0;
+        lat = lat > 90.0 ? 180.0 - lat : lat < -90.0 ? -180.0 - lat : lat;
+        index.upsert(activity(id, lat, -180.0 + random.nextDouble() * 360.0));
+      }
+
+      List<NearbyCandidate> scan = index.findNearby(latitude, 30.0, 50.0, null);
+      assertThat(scan).as("latitude %s", latitude).isNotEmpty();
+      for (int k : new int[]{1, 10, 100, 5_000}) {
+        List<NearbyCandidate> nearest = index.findNearest(latitude, 30.0, k, 50.0, null);
+
+        assertThat(ids(nearest))
+            .as("latitude %s, k %d", latitude, k)
+            .containsExactlyElementsOf(ids(scan.subList(0, Math.min(k, scan.size()))));
+      }
+    }
+  }
+
+  @Test
+  void findNearestFindsALoneActivityAcrossTheAntimeridianAtHighLatitude() {
+    index.upsert(activity(1, 85.0, -179.5));
+    index.upsert(activity(2, 85.0, 170.0));
+
+    List<NearbyCandidate> nearest = index.findNearest(85.0, 179.5, 5, 20.0, null);
+
+    assertThat(ids(nearest)).containsExactly(1L);
+    assertThat(nearest.get(0).getDistanceKm()).isBetween(9.0, 10.0);
+  }
+
+  @Test
+  void findNearestStopsAtTheRadiusWhenNothingIsInRange() {
+    index.upsert(activity(1, 85.0, 60.0));
+
+    assertThat(index.findNearest(85.0, 0.0, 10, 50.0, null)).isEmpty();
+    assertThat(index.findNearest(-85.0, 0.0, 10, 50.0, null)).isEmpty();
+  }
+
+  private static IndexedActivity activity(long id, double latitude, double longitude) {
+    return new IndexedActivity(id, latitude, longitude, ActivityType.SPORTS, ActivityStatus.OPEN, 1, 10, 0L);
+  }
+
+  private static List<Long> ids(List<NearbyCandidate> candidates) {
+    return candidates.stream().map(NearbyCandidate::getActivityId).toList();
+  }
+
+}
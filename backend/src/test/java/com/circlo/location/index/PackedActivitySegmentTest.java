@@ -0,0 +1,130 @@
+package com.circlo.location.index;
+
+import com.circlo.activity.entity.ActivityStatus;
+import com.circlo.activity.entity.ActivityType;
+import com.circlo.location.util.MortonCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PackedActivitySegmentTest {
+
+  private static final ActivityType[] TYPES = ActivityType.values();
+  private static final ActivityStatus[] STATUSES = ActivityStatus.values();
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void sealSortsRecordsByKeyAndKeepsTheirFields() {
+    PackedActivitySegment segment = PackedActivitySegment.create(directory.resolve("segment"));
+    Map<Long, double[]> locations = new HashMap<>();
+    Random random = new Random(7);
+    for (long id = 1; id <= 5_000; id++) {
+      // Every tenth activity shares a venue, so many keys are equal
+      double latitude = id % 10 == 0 ? 37.5665 : -60.0 + random.nextDouble() * 120.0;
+      double longitude = id % 10 == 0 ? 126.9780 : -180.0 + random.nextDouble() * 360.0;
+      segment.append(id, latitude, longitude, TYPES[(int) (id % TYPES.length)],
+          STATUSES[(int) (id % STATUSES.length)], (int) (id % 50));
+      locations.put(id, new double[]{latitude, longitude});
+    }
+
+    segment.seal();
+
+    assertThat(segment.size()).isEqualTo(5_000);
+    for (long i = 0; i < segment.size(); i++) {
+      if (i > 0) {
+        assertThat(segment.key(i)).isGreaterThanOrEqualTo(segment.key(i - 1));
+      }
+      long id = segment.id(i);
+      double[] location = locations.remove(id);
+      assertThat(location).isNotNull();
+      assertThat(segment.latitude(i)).isCloseTo(location[0], within(1e-7));
+      assertThat(segment.longitude(i)).isCloseTo(location[1], within(1e-7));
+      assertThat(segment.key(i)).isEqualTo(MortonCode.encode(location[0], location[1]));
+      assertThat(segment.type(i)).isEqualTo(TYPES[(int) (id % TYPES.length)]);
+      assertThat(segment.status(i)).isEqualTo(STATUSES[(int) (id % STATUSES.length)]);
+      assertThat(segment.capacity(i)).isEqualTo((int) (id % 50));
+    }
+    assertThat(locations).isEmpty();
+  }
+
+  @Test
+  void capacityIsClampedToAShort() {
+    PackedActivitySegment segment = PackedActivitySegment.create(directory.resolve("segment"));
+    segment.append(1, 0.0, 0.0, TYPES[0], STATUSES[0], 100_000);
+    segment.append(2, 0.0, 0.0, TYPES[0], STATUSES[0], -5);
+
+    segment.seal();
+
+    assertThat(segment.capacity(0) + segment.capacity(1)).isEqualTo(Short.MAX_VALUE);
+  }
+
+  @Test
+  void lowerBoundFindsFirstRecordNotBelowKey() {
+    PackedActivitySegment segment = PackedActivitySegment.create(directory.resolve("segment"));
+    Random random = new Random(11);
+    for (long id = 1; id <= 1_000; id++) {
+      segment.append(id, -80.0 + random.nextDouble() * 160.0, -180.0 + random.nextDouble() * 360.0,
+          TYPES[0], STATUSES[0], 1);
+    }
+    segment.seal();
+
+    assertThat(segment.lowerBound(Long.MIN_VALUE)).isZero();
+    assertThat(segment.lowerBound(Long.MAX_VALUE)).isEqualTo(segment.size());
+    for (long i = 0; i < segment.size(); i += 37) {
+      long key = segment.key(i);
+      long bound = segment.lowerBound(key);
+      assertThat(segment.key(bound)).isEqualTo(key);
+      if (bound > 0) {
+        assertThat(segment.key(bound - 1)).isLessThan(key);
+      }
+    }
+  }
+
+  @Test
+  void appendFromCopiesWholeRecords() {
+    PackedActivitySegment source = PackedActivitySegment.create(directory.resolve("source"));
+    source.append(1, 37.5665, 126.9780, TYPES[TYPES.length - 1], STATUSES[STATUSES.length - 1], 12);
+    source.append(2, 35.1796, 129.0756, TYPES[0], STATUSES[0], 3);
+    source.seal();
+
+    PackedActivitySegment target = PackedActivitySegment.create(directory.resolve("target"));
+    for (long i = source.size() - 1; i >= 0; i--) {
+      target.appendFrom(source, i);
+    }
+    target.seal();
+
+    assertThat(target.size()).isEqualTo(2);
+    for (long i = 0; i < target.size(); i++) {
+      assertThat(target.key(i)).isEqualTo(source.key(i));
+      assertThat(target.id(i)).isEqualTo(source.id(i));
+      assertThat(target.latitude(i)).isEqualTo(source.latitude(i));
+      assertThat(target.longitude(i)).isEqualTo(source.longitude(i));
+      assertThat(target.type(i)).isEqualTo(source.type(i));
+      assertThat(target.status(i)).isEqualTo(source.status(i));
+      assertThat(target.capacity(i)).isEqualTo(source.capacity(i));
+    }
+  }
+
+  @Test
+  void deleteRemovesTheFile() {
+    Path file = directory.resolve("segment");
+    PackedActivitySegment segment = PackedActivitySegment.create(file);
+    segment.append(1, 0.0, 0.0, TYPES[0], STATUSES[0], 1);
+    segment.seal();
+
+    segment.delete();
+
+    assertThat(Files.exists(file)).isFalse();
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.circlo.location.service;
+
+import com.circlo.activity.repository.ActivityRepository;
+import com.circlo.common.datasource.ShardMap;
+import com.circlo.location.index.ActivityGeoIndex;
+import com.circlo.location.index.NearbyCandidate;
+import com.circlo.location.index.OffHeapActivityIndex;
+import com.circlo.location.index.RedisGeoActivityIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class NearbyCandidateServiceTest {
+
+  private final ActivityGeoIndex activityGeoIndex = mock(ActivityGeoIndex.class);
+  private final OffHeapActivityIndex offHeapActivityIndex = mock(OffHeapActivityIndex.class);
+  private final RedisGeoActivityIndex redisGeoActivityIndex = mock(RedisGeoActivityIndex.class);
+  private final ActivityRepository activityRepository = mock(ActivityRepository.class);
+  private final ShardMap shardMap = mock(ShardMap.class);
+
+  private final NearbyCandidateService service = new NearbyCandidateService(
+      activityGeoIndex, offHeapActivityIndex, redisGeoActivityIndex, activityRepository, shardMap);
+
+  @Test
+  void findNearbyPageServesFromTheOffHeapIndexWhenItIsTheOnlyOneReady() {
+    when(offHeapActivityIndex.isReady()).thenReturn(true);
+    when(offHeapActivityIndex.findNearby(37.5, 127.0, 5.0, null)).thenReturn(List.of(
+        new NearbyCandidate(3, 0.4),
+        new NearbyCandidate(1, 1.2),
+        new NearbyCandidate(2, 1.2),
+        new NearbyCandidate(4, 2.5)));
+
+    NearbyCursor cursor = NearbyCursor.after(new NearbyCandidate(3, 0.4));
+    List<NearbyCandidate> page = service.findNearbyPage(37.5, 127.0, 5.0, null, cursor, 2);
+
+    assertThat(page).extracting(NearbyCandidate::getActivityId).containsExactly(1L, 2L);
+    verifyNoInteractions(activityRepository, shardMap);
+  }
+
+}
@@ -0,0 +1,100 @@
+package com.circlo.location.service;
+
+import com.circlo.location.index.NearbyCandidate;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NearbyCursorTest {
+
+  @Test
+  void encodeAndDecodeRoundTrip() {
+    NearbyCursor cursor = NearbyCursor.after(new NearbyCandidate(1234L, 2.5));
+
+    NearbyCursor decoded = NearbyCursor.decode(cursor.encode());
+
+    assertThat(decoded.getLastDistanceMeters()).isEqualTo(2500L);
+    assertThat(decoded.getLastId()).isEqualTo(1234L);
+  }
+
+  @Test
+  void encodedCursorIsUrlSafe() {
+    String encoded = new NearbyCursor(Long.MAX_VALUE, Long.MAX_VALUE).encode();
+
+    assertThat(encoded).matches("[A-Za-z0-9_-]+");
+  }
+
+  @Test
+  void missingCursorStartsFromTheBeginning() {
+    assertThat(NearbyCursor.decode(null)).isSameAs(NearbyCursor.START);
+    assertThat(NearbyCursor.decode("")).isSameAs(NearbyCursor.START);
+  }
+
+  @Test
+  void malformedCursorIsRejected() {
+    String noSeparator = Base64.getUrlEncoder().encodeToString("1234".getBytes(StandardCharsets.UTF_8));
+    String notNumbers = Base64.getUrlEncoder().encodeToString("a:b".getBytes(StandardCharsets.UTF_8));
+
+    for (String cursor : new String[]{"not base64!", noSeparator, notNumbers}) {
+      assertThatThrownBy(() -> NearbyCursor.decode(cursor))
+          .isInstanceOf(RuntimeException.class)
+          .hasMessage("Invalid cursor");
+    }
+  }
+
+  @Test
+  void distanceIsFlooredToWholeMeters() {
+    assertThat(NearbyCursor.distanceMeters(new NearbyCandidate(1L, 0.0))).isZero();
+    assertThat(NearbyCursor.distanceMeters(new NearbyCandidate(1L, 0.0009999))).isZero();
+    assertThat(NearbyCursor.distanceMeters(new NearbyCandidate(1L, 1.2349))).isEqualTo(1234L);
+  }
+
+  @Test
+  void startIsBeforeEveryCandidate() {
+    assertThat(NearbyCursor.START.isBefore(new NearbyCandidate(1L, 0.0))).isTrue();
+  }
+
+  @Test
+  void tiesOnDistanceAreSettledById() {
+    NearbyCursor cursor = NearbyCursor.after(new NearbyCandidate(10L, 1.5004));
+
+    // Same whole meter as the cursor, which went through meters and back
+    assertThat(cursor.isBefore(new NearbyCandidate(11L, 1.5001))).isTrue();
+    assertThat(cursor.isBefore(new NearbyCandidate(10L, 1.5004))).isFalse();
+    assertThat(cursor.isBefore(new NearbyCandidate(9L, 1.5009))).isFalse();
+    assertThat(cursor.isBefore(new NearbyCandidate(1L, 1.501))).isTrue();
+    assertThat(cursor.isBefore(new NearbyCandidate(99L, 1.499))).isFalse();
+  }
+
+  @Test
+  void pagingAfterEachCursorWalksThePageOrder() {
+    List<NearbyCandidate> candidates = new ArrayList<>(List.of(
+        new NearbyCandidate(3L, 0.5004),
+        new NearbyCandidate(1L, 0.5001),
+        new NearbyCandidate(2L, 0.2),
+        new NearbyCandidate(5L, 1.0),
+        new NearbyCandidate(4L, 0.5009)));
+    candidates.sort(NearbyCursor.PAGE_ORDER);
+
+    assertThat(candidates).extracting(NearbyCandidate::getActivityId).containsExactly(2L, 1L, 3L, 4L, 5L);
+
+    NearbyCursor cursor = NearbyCursor.START;
+    for (NearbyCandidate candidate : candidates) {
+      NearbyCursor decoded = NearbyCursor.decode(cursor.encode());
+      List<Long> remaining = candidates.stream()
+          .filter(decoded::isBefore)
+          .map(NearbyCandidate::getActivityId)
+          .toList();
+      assertThat(remaining).first().isEqualTo(candidate.getActivityId());
+      cursor = NearbyCursor.after(candidate);
+    }
+    assertThat(candidates).noneMatch(NearbyCursor.decode(cursor.encode())::isBefore);
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.circlo.location.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoHashTest {
+
+  @Test
+  void encodesKnownLocations() {
+    assertThat(GeoHash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+    assertThat(GeoHash.encode(37.7749, -122.4194, 5)).isEqualTo("9q8yy");
+  }
+
+  @Test
+  void shorterPrecisionIsAPrefix() {
+    String full = GeoHash.encode(37.5665, 126.9780, 9);
+
+    for (int precision = 1; precision < 9; precision++) {
+      assertThat(full).startsWith(GeoHash.encode(37.5665, 126.9780, precision));
+    }
+  }
+
+  @Test
+  void boxInsideOneCellIsCoveredByThatCell() {
+    Set<String> cells = GeoHash.covering(37.56, 126.97, 37.57, 126.98, 3, 64);
+
+    assertThat(cells).containsExactly(GeoHash.encode(37.565, 126.975, 3));
+  }
+
+  @Test
+  void boxAcrossCellEdgeIsCoveredByBothCells() {
+    // Precision 2 cells are 11.25 degrees wide; 135 east is an edge
+    Set<String> cells = GeoHash.covering(36.0, 134.9, 36.1, 135.1, 2, 64);
+
+    assertThat(cells).containsExactlyInAnyOrder("wy", "xn");
+  }
+
+  @Test
+  void coveringIncludesEveryCellTheBoxTouches() {
+    double minLat = 30.3;
+    double minLon = 120.7;
+    double maxLat = 41.2;
+    double maxLon = 141.9;
+    Set<String> cells = GeoHash.covering(minLat, minLon, maxLat, maxLon, 2, 64);
+
+    for (double lat = minLat; lat <= maxLat; lat += 0.5) {
+      for (double lon = minLon; lon <= maxLon; lon += 0.5) {
+        assertThat(cells).contains(GeoHash.encode(lat, lon, 2));
+      }
+    }
+  }
+
+  @Test
+  void boxPastTheAntimeridianWrapsAround() {
+    // Callers pass an antimeridian box with maxLon shifted past 180
+    Set<String> cells = GeoHash.covering(10.0, 179.5, 10.5, 180.5, 3, 64);
+
+    assertThat(cells).contains(GeoHash.encode(10.2, 179.8, 3), GeoHash.encode(10.2, -179.8, 3));
+  }
+
+  @Test
+  void tooManyCellsIsNull() {
+    assertThat(GeoHash.covering(-45.0, -90.0, 45.0, 90.0, 4, 64)).isNull();
+  }
+
+}
@@ -0,0 +1,85 @@
+package com.circlo.location.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MortonCodeTest {
+
+  @Test
+  void keysAreNonNegativeAtTheCorners() {
+    assertThat(MortonCode.encode(-90.0, -180.0)).isZero();
+    assertThat(MortonCode.encode(90.0, 180.0)).isPositive();
+    assertThat(MortonCode.encode(0.0, 0.0)).isPositive();
+  }
+
+  @Test
+  void quantizationClampsOutOfRangeCoordinates() {
+    assertThat(MortonCode.quantizeLatitude(-91.0)).isEqualTo(MortonCode.quantizeLatitude(-90.0));
+    assertThat(MortonCode.quantizeLongitude(181.0)).isEqualTo(MortonCode.quantizeLongitude(180.0));
+  }
+
+  @Test
+  void rangesAreAscendingAndDisjoint() {
+    List<long[]> ranges = MortonCode.ranges(37.50, 126.90, 37.60, 127.10, 64);
+
+    assertThat(ranges).isNotEmpty();
+    for (int i = 0; i < ranges.size(); i++) {
+      long[] range = ranges.get(i);
+      assertThat(range[0]).isLessThanOrEqualTo(range[1]);
+      if (i > 0) {
+        // Adjacent ranges would have been merged
+        assertThat(range[0]).isGreaterThan(ranges.get(i - 1)[1] + 1);
+      }
+    }
+  }
+
+  @Test
+  void rangesCoverEveryPointInTheBox() {
+    double minLat = 37.50;
+    double minLon = 126.90;
+    double maxLat = 37.60;
+    double maxLon = 127.10;
+    List<long[]> ranges = MortonCode.ranges(minLat, minLon, maxLat, maxLon, 64);
+
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      double latitude = minLat + random.nextDouble() * (maxLat - minLat);
+      double longitude = minLon + random.nextDouble() * (maxLon - minLon);
+      assertThat(covers(ranges, MortonCode.encode(latitude, longitude))).isTrue();
+    }
+    assertThat(covers(ranges, MortonCode.encode(minLat, minLon))).isTrue();
+    assertThat(covers(ranges, MortonCode.encode(maxLat, maxLon))).isTrue();
+  }
+
+  @Test
+  void rangeCountStaysWithinMaxCells() {
+    for (int maxCells : new int[]{1, 4, 16, 64}) {
+      List<long[]> ranges = MortonCode.ranges(-10.0, -20.0, 30.0, 40.0, maxCells);
+
+      assertThat(ranges).hasSizeLessThanOrEqualTo(maxCells);
+    }
+  }
+
+  @Test
+  void singlePointBoxIsOneRange() {
+    List<long[]> ranges = MortonCode.ranges(37.5665, 126.9780, 37.5665, 126.9780, 64);
+    long key = MortonCode.encode(37.5665, 126.9780);
+
+    assertThat(ranges).hasSize(1);
+    assertThat(ranges.get(0)).containsExactly(key, key);
+  }
+
+  private static boolean covers(List<long[]> ranges, long key) {
+    for (long[] range : ranges) {
+      if (key >= range[0] && key <= range[1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}